@@ -0,0 +1,132 @@
+package com.bizrateinsights.benchmark;
+
+import com.bizrateinsights.model.MetaConfig;
+import com.bizrateinsights.selenium.BrowserProfile;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.aeonbits.owner.ConfigCache;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Measures page-ready latency per {@link BrowserProfile} against a local static site, with the local chromedriver
+ * (chromedriver.local.path) in headless mode.
+ * <p>
+ * The fixture page has same-origin images, and an async analytics tag, a web font stylesheet and an embedded player
+ * served from the "third-party" host thirdparty.test. Every fixture response is delayed to stand in for the network,
+ * and third-party responses are delayed the most. thirdparty.test is mapped to the fixture for every profile, and is
+ * blocked on top of that by the profiles that block third-party hosts. Page-ready is the time from driver.get() until
+ * the page's content element can be found.
+ * <p>
+ * mvn -Pbenchmark compile exec:java -Dbenchmark.class=com.bizrateinsights.benchmark.BrowserProfileBenchmark
+ */
+public class BrowserProfileBenchmark {
+
+    private static final MetaConfig CONFIG = ConfigCache.getOrCreate(MetaConfig.class);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 10);
+    private static final int IMAGES = 30;
+    private static final String THIRD_PARTY_HOST = "thirdparty.test";
+
+    public static void main(String[] args) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        HttpServer server = startFixture(executor);
+        int port = server.getAddress().getPort();
+        System.setProperty("webdriver.chrome.driver", CONFIG.getChromedriverLocalPath());
+
+        try {
+            System.out.println("profile,pageLoadStrategy,iterations,medianMillis,maxMillis");
+            for (BrowserProfile profile : BrowserProfile.values()) {
+                measure(profile, "http://127.0.0.1:" + port + "/");
+            }
+        } finally {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private static void measure(BrowserProfile profile, String url) {
+        ChromeOptions chromeOptions = new ChromeOptions();
+        chromeOptions.addArguments("--headless");
+        chromeOptions.addArguments("--disable-gpu");
+        profile.apply(chromeOptions, Collections.singletonList(THIRD_PARTY_HOST),
+                Collections.singletonList("MAP " + THIRD_PARTY_HOST + " 127.0.0.1"));
+
+        WebDriver webDriver = new ChromeDriver(chromeOptions);
+        try {
+            WebDriverWait wait = new WebDriverWait(webDriver, 30, 5);
+            //warm up the session, not measured
+            load(webDriver, wait, url);
+
+            double[] millis = new double[ITERATIONS];
+            for (int i = 0; i < ITERATIONS; i++) {
+                webDriver.get("about:blank");
+                millis[i] = load(webDriver, wait, url) / 1_000_000.0;
+            }
+            Arrays.sort(millis);
+            System.out.printf("%s,%s,%d,%.1f,%.1f%n", profile, profile.getPageLoadStrategy(), ITERATIONS,
+                    millis[ITERATIONS / 2], millis[ITERATIONS - 1]);
+        } finally {
+            webDriver.quit();
+        }
+    }
+
+    private static long load(WebDriver webDriver, WebDriverWait wait, String url) {
+        long start = System.nanoTime();
+        webDriver.get(url);
+        wait.until(ExpectedConditions.presenceOfElementLocated(By.id("content")));
+        return System.nanoTime() - start;
+    }
+
+    private static HttpServer startFixture(ExecutorService executor) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        int port = server.getAddress().getPort();
+        String thirdParty = "http://" + THIRD_PARTY_HOST + ":" + port;
+
+        StringBuilder page = new StringBuilder("<html><head><title>fixture</title>")
+                .append("<link rel=\"stylesheet\" href=\"").append(thirdParty).append("/fonts.css\">")
+                .append("<script async src=\"").append(thirdParty).append("/tag.js\"></script>")
+                .append("</head><body>");
+        for (int i = 0; i < IMAGES; i++) {
+            page.append("<img width=\"100\" height=\"100\" src=\"/img/").append(i).append(".png\">");
+        }
+        page.append("<iframe src=\"").append(thirdParty).append("/embed\"></iframe>")
+                .append("<div id=\"content\">ready</div></body></html>");
+
+        server.createContext("/", x -> respond(x, 20, "text/html", page.toString()));
+        server.createContext("/img/", x -> respond(x, 100, "image/png", ""));
+        server.createContext("/fonts.css", x -> respond(x, 400, "text/css", "body { font-family: sans-serif; }"));
+        server.createContext("/tag.js", x -> respond(x, 1500, "application/javascript", "window.tagged = true;"));
+        server.createContext("/embed", x -> respond(x, 1000, "text/html", "<html><body>player</body></html>"));
+        server.setExecutor(executor);
+        server.start();
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, long delayMillis, String contentType, String body) throws IOException {
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.getResponseHeaders().add("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.bizrateinsights.benchmark;
+
+import com.bizrateinsights.clients.SQSOperationsClient;
+import com.bizrateinsights.dispatch.LambdaTestDispatcher;
+import com.bizrateinsights.dispatch.SqsTestDispatcher;
+import com.bizrateinsights.model.TestTrigger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures time-to-last-test-started for a fan-out of 1000 tests, using {@link LocalLambda} and {@link LocalSQS}.
+ * <p>
+ * "lambda" rows are direct InvokeAsync fan-outs at several concurrency windows, timed until the last stand-in
+ * function started. The "sqs" row is timed until the last trigger was enqueued. It excludes the event source
+ * mapping's polling latency, so it is a lower bound for the queue path.
+ * <p>
+ * mvn -Pbenchmark compile exec:java -Dbenchmark.class=com.bizrateinsights.benchmark.DirectInvokeBenchmark
+ */
+public class DirectInvokeBenchmark {
+
+    private static final int SUITE_SIZE = Integer.getInteger("benchmark.suite.size", 1000);
+    private static final int[] WINDOWS = {10, 50, 100, 250};
+    private static final int CLIENT_THREADS = 50;
+
+    public static void main(String[] args) {
+        long latencyMillis = Long.getLong("benchmark.api.latency.ms", 20);
+        List<TestTrigger> triggers = buildTriggers(SUITE_SIZE);
+
+        System.out.println("suiteSize,mode,window,millisToLastStarted,apiCalls");
+        for (int window : WINDOWS) {
+            AtomicLong lastStarted = new AtomicLong();
+            LocalLambda localLambda = new LocalLambda(latencyMillis, CLIENT_THREADS, x -> lastStarted.accumulateAndGet(System.nanoTime(), Math::max));
+            LambdaTestDispatcher dispatcher = new LambdaTestDispatcher(localLambda, "benchmark", "dev", window, 3);
+
+            long start = System.nanoTime();
+            dispatcher.dispatch(triggers);
+            report("lambda", window, lastStarted.get() - start, localLambda.getApiCallCount());
+            localLambda.shutdown();
+        }
+
+        LocalSQS localSQS = new LocalSQS(latencyMillis);
+        SqsTestDispatcher sqsDispatcher = new SqsTestDispatcher(new SQSOperationsClient(localSQS), "benchmark.fifo", 8, 3);
+        long start = System.nanoTime();
+        sqsDispatcher.dispatch(triggers);
+        report("sqs", 8, System.nanoTime() - start, localSQS.getApiCallCount());
+    }
+
+    private static List<TestTrigger> buildTriggers(int suiteSize) {
+        String runId = String.valueOf(UUID.randomUUID());
+        List<TestTrigger> triggers = new ArrayList<>(suiteSize);
+        for (int i = 0; i < suiteSize; i++) {
+            triggers.add(TestTrigger.builder()
+                    .testClass("com.automationlambda.Benchmark_Test")
+                    .method("test" + i)
+                    .runId(runId)
+                    .testId(String.valueOf(UUID.randomUUID()))
+                    .testCount(suiteSize)
+                    .retryCount(0)
+                    .build());
+        }
+        return triggers;
+    }
+
+    private static void report(String mode, int window, long nanos, long apiCalls) {
+        System.out.printf("%d,%s,%d,%.1f,%d%n", SUITE_SIZE, mode, window, nanos / 1_000_000.0, apiCalls);
+    }
+}
@@ -0,0 +1,89 @@
+package com.bizrateinsights.benchmark;
+
+import com.bizrateinsights.artifacts.Artifact;
+import com.bizrateinsights.results.ResultStore;
+import com.bizrateinsights.results.VersionedResult;
+import lombok.SneakyThrows;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-process stand-in for the s3 buckets, so result paths can be exercised and benchmarked without AWS or disk I/O.
+ * Keys are listed in lexicographic order, like an s3 listing.
+ */
+public class InMemoryResultStore implements ResultStore {
+
+    private final ConcurrentSkipListMap<String, String> results = new ConcurrentSkipListMap<>();
+    private final Map<String, Artifact> artifacts = new ConcurrentHashMap<>();
+
+    @Override
+    public void putResult(String key, String content) {
+        results.put(key, content);
+    }
+
+    @Override
+    public boolean putResultIfAbsent(String key, String content) {
+        return results.putIfAbsent(key, content) == null;
+    }
+
+    @Override
+    public boolean replaceResult(String key, String content, String version) {
+        if (version == null) {
+            return putResultIfAbsent(key, content);
+        }
+        String current = results.get(key);
+        return current != null && VersionedResult.of(current).getVersion().equals(version) && results.replace(key, current, content);
+    }
+
+    @Override
+    @SneakyThrows
+    public void putResult(String key, File file) {
+        results.put(key, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void putArtifact(String key, Artifact artifact) {
+        artifacts.put(key, artifact);
+    }
+
+    @Override
+    public String getResult(String key) {
+        String result = results.get(key);
+        if (result == null) {
+            throw new IllegalArgumentException("No result stored under " + key);
+        }
+        return result;
+    }
+
+    @Override
+    public VersionedResult getVersionedResult(String key) {
+        String result = results.get(key);
+        return result == null ? null : VersionedResult.of(result);
+    }
+
+    @Override
+    public List<String> getResultKeys(String prefix) {
+        List<String> keys = new ArrayList<>();
+        for (String key : results.tailMap(prefix).keySet()) {
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    /**
+     * @return the artifact stored under a key, null if there is none
+     */
+    public Artifact getArtifact(String key) {
+        return artifacts.get(key);
+    }
+}
@@ -0,0 +1,83 @@
+package com.bizrateinsights.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Runs the JMH benchmarks of the per-test orchestration paths - {@link JunitDiscoveryBenchmark},
+ * {@link TriggerBuildBenchmark}, {@link SqsBodyParseBenchmark} and {@link SuiteReportBenchmark} - and writes all of
+ * their results into one JMH json file, so the results of two versions can be diffed.
+ * <p>
+ * Discovery runs once per synthetic jar size and discovery mode, with the jar first on the classpath of its forks. The
+ * other benchmarks run together. Set benchmark.jmh.include to run only the benchmarks whose class name contains it.
+ * <p>
+ * mvn -Pbenchmark compile exec:java -Dbenchmark.class=com.bizrateinsights.benchmark.JmhBenchmarks
+ * -Dbenchmark.jmh.result=target/jmh-result.json
+ */
+public class JmhBenchmarks {
+
+    private static final int[] CLASS_COUNTS = {100, 1000, 10000};
+    private static final List<String> DISCOVERY_MODES = Arrays.asList("index", "scan");
+    private static final List<Class<?>> BENCHMARKS = Arrays.asList(
+            TriggerBuildBenchmark.class, SqsBodyParseBenchmark.class, SuiteReportBenchmark.class);
+
+    public static void main(String[] args) throws Exception {
+        String include = System.getProperty("benchmark.jmh.include", "");
+        File resultFile = new File(System.getProperty("benchmark.jmh.result", "target/jmh-result.json"));
+        File jarDir = new File(System.getProperty("benchmark.jar.dir", "target/benchmark-jars"));
+        String classpath = StartupBenchmark.getClasspath();
+        List<RunResult> results = new ArrayList<>();
+
+        if (JunitDiscoveryBenchmark.class.getSimpleName().contains(include)) {
+            for (int classCount : CLASS_COUNTS) {
+                for (String discovery : DISCOVERY_MODES) {
+                    File jar = SyntheticTestJar.write(jarDir, classCount, discovery.equals("index"));
+                    results.addAll(run(jar.getAbsolutePath() + File.pathSeparator + classpath, new OptionsBuilder()
+                            .include(JunitDiscoveryBenchmark.class.getName() + "\\.")
+                            .param("classCount", String.valueOf(classCount))
+                            .param("discovery", discovery)));
+                }
+            }
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder();
+        boolean included = false;
+        for (Class<?> benchmark : BENCHMARKS) {
+            if (benchmark.getSimpleName().contains(include)) {
+                options.include(benchmark.getName() + "\\.");
+                included = true;
+            }
+        }
+        if (included) {
+            results.addAll(run(classpath, options));
+        }
+
+        File resultDir = resultFile.getAbsoluteFile().getParentFile();
+        if (resultDir != null) {
+            resultDir.mkdirs();
+        }
+        try (PrintStream out = new PrintStream(resultFile, "UTF-8")) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(results);
+        }
+        System.out.println("Wrote " + results.size() + " benchmark results to " + resultFile.getAbsolutePath());
+    }
+
+    /**
+     * JMH starts its forks with java.class.path, which exec:java does not set to the benchmark's own classpath.
+     */
+    private static Collection<RunResult> run(String classpath, ChainedOptionsBuilder options) throws Exception {
+        System.setProperty("java.class.path", classpath);
+        return new Runner(options.shouldFailOnError(true).build()).run();
+    }
+}
@@ -0,0 +1,69 @@
+package com.bizrateinsights.benchmark;
+
+import com.bizrateinsights.JunitUtils;
+import com.bizrateinsights.index.TestIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Setup mode test discovery - {@link JunitUtils#getJunitTestClasses} and {@link JunitUtils#getTestsInJunitClass} - over
+ * a {@link SyntheticTestJar} of classCount test classes. "index" reads the build-time {@link TestIndex} packaged with the
+ * jar, "scan" is the reflections fallback for jars built without one.
+ * <p>
+ * The jar must be on the classpath of the forked JVM, so {@link JmhBenchmarks} runs every size and discovery mode on
+ * its own, with the matching jar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JunitDiscoveryBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int classCount;
+
+    @Param({"index", "scan"})
+    public String discovery;
+
+    private List<String> classes;
+
+    @Setup
+    public void setup() {
+        if ((TestIndex.load() != null) != discovery.equals("index")) {
+            throw new IllegalStateException("Discovery mode " + discovery + " needs a classpath "
+                    + (discovery.equals("index") ? "with" : "without") + " a test index, run it through JmhBenchmarks after clean compile");
+        }
+        classes = JunitUtils.getJunitTestClasses(SyntheticTestJar.PACKAGE);
+        if (classes.size() != classCount) {
+            throw new IllegalStateException("Found " + classes.size() + " synthetic test classes instead of " + classCount
+                    + ", run it through JmhBenchmarks");
+        }
+    }
+
+    @Benchmark
+    public List<String> getJunitTestClasses() {
+        return JunitUtils.getJunitTestClasses(SyntheticTestJar.PACKAGE);
+    }
+
+    @Benchmark
+    public void getTestsInJunitClass(Blackhole blackhole) {
+        for (String clazz : classes) {
+            blackhole.consume(JunitUtils.getTestsInJunitClass(clazz));
+        }
+    }
+}
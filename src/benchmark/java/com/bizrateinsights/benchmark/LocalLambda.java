@@ -0,0 +1,71 @@
+package com.bizrateinsights.benchmark;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.lambda.AbstractAWSLambdaAsync;
+import com.amazonaws.services.lambda.model.InvokeRequest;
+import com.amazonaws.services.lambda.model.InvokeResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * In-process stand-in for asynchronous lambda invocation, so direct fan-out can be exercised and benchmarked without
+ * AWS. Each invoke call sleeps for a fixed latency on a pool sized like the SDK's async client, then hands the
+ * payload to {@code function} as the "started" function and completes with a 202 like an Event invocation.
+ */
+public class LocalLambda extends AbstractAWSLambdaAsync {
+
+    private static final int ACCEPTED = 202;
+
+    private final long latencyMillis;
+    private final Consumer<String> function;
+    private final ExecutorService executor;
+    private final AtomicLong apiCalls = new AtomicLong();
+
+    /**
+     * @param latencyMillis = simulated round trip of one invoke call
+     * @param clientThreads = threads of the simulated async client
+     * @param function = receives each invocation's payload when the function starts
+     */
+    public LocalLambda(long latencyMillis, int clientThreads, Consumer<String> function) {
+        this.latencyMillis = latencyMillis;
+        this.function = function;
+        this.executor = Executors.newFixedThreadPool(clientThreads);
+    }
+
+    @Override
+    public Future<InvokeResult> invokeAsync(InvokeRequest request, AsyncHandler<InvokeRequest, InvokeResult> asyncHandler) {
+        return executor.submit(() -> {
+            apiCalls.incrementAndGet();
+            try {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+                function.accept(StandardCharsets.UTF_8.decode(request.getPayload().duplicate()).toString());
+            } catch (Exception e) {
+                if (asyncHandler != null) {
+                    asyncHandler.onError(e);
+                }
+                throw e;
+            }
+
+            InvokeResult result = new InvokeResult().withStatusCode(ACCEPTED);
+            if (asyncHandler != null) {
+                asyncHandler.onSuccess(request, result);
+            }
+            return result;
+        });
+    }
+
+    public long getApiCallCount() {
+        return apiCalls.get();
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
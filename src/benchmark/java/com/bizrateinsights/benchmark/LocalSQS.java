@@ -0,0 +1,102 @@
+package com.bizrateinsights.benchmark;
+
+import com.amazonaws.services.sqs.AbstractAmazonSQS;
+import com.amazonaws.services.sqs.model.GetQueueUrlRequest;
+import com.amazonaws.services.sqs.model.GetQueueUrlResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
+import com.amazonaws.services.sqs.model.SendMessageRequest;
+import com.amazonaws.services.sqs.model.SendMessageResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for SQS, so enqueue paths can be exercised and benchmarked without AWS. Every API call sleeps
+ * for a fixed latency to approximate the network round trip of the real service.
+ */
+public class LocalSQS extends AbstractAmazonSQS {
+
+    private static final String QUEUE_URL_PREFIX = "local://sqs/";
+
+    private final long latencyMillis;
+    private final Map<String, Queue<String>> queues = new ConcurrentHashMap<>();
+    private final AtomicLong apiCalls = new AtomicLong();
+
+    public LocalSQS(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public GetQueueUrlResult getQueueUrl(String queueName) {
+        return getQueueUrl(new GetQueueUrlRequest(queueName));
+    }
+
+    @Override
+    public GetQueueUrlResult getQueueUrl(GetQueueUrlRequest request) {
+        simulateRoundTrip();
+        return new GetQueueUrlResult().withQueueUrl(QUEUE_URL_PREFIX + request.getQueueName());
+    }
+
+    @Override
+    public SendMessageResult sendMessage(String queueUrl, String messageBody) {
+        return sendMessage(new SendMessageRequest(queueUrl, messageBody));
+    }
+
+    @Override
+    public SendMessageResult sendMessage(SendMessageRequest request) {
+        simulateRoundTrip();
+        getQueue(request.getQueueUrl()).add(request.getMessageBody());
+        return new SendMessageResult().withMessageId(String.valueOf(UUID.randomUUID()));
+    }
+
+    @Override
+    public SendMessageBatchResult sendMessageBatch(SendMessageBatchRequest request) {
+        simulateRoundTrip();
+        Queue<String> queue = getQueue(request.getQueueUrl());
+        List<SendMessageBatchResultEntry> successful = new ArrayList<>(request.getEntries().size());
+        for (SendMessageBatchRequestEntry entry : request.getEntries()) {
+            queue.add(entry.getMessageBody());
+            successful.add(new SendMessageBatchResultEntry()
+                    .withId(entry.getId())
+                    .withMessageId(String.valueOf(UUID.randomUUID())));
+        }
+        return new SendMessageBatchResult().withSuccessful(successful);
+    }
+
+    /**
+     * @return every message body sent to the queue so far, in arrival order
+     */
+    public Queue<String> getMessages(String queueName) {
+        return getQueue(QUEUE_URL_PREFIX + queueName);
+    }
+
+    public long getApiCallCount() {
+        return apiCalls.get();
+    }
+
+    private Queue<String> getQueue(String queueUrl) {
+        return queues.computeIfAbsent(queueUrl, x -> new ConcurrentLinkedQueue<>());
+    }
+
+    private void simulateRoundTrip() {
+        apiCalls.incrementAndGet();
+        if (latencyMillis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
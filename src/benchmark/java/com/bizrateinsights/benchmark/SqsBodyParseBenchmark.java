@@ -0,0 +1,86 @@
+package com.bizrateinsights.benchmark;
+
+import com.bizrateinsights.model.TestTrigger;
+import com.bizrateinsights.selenium.Browsers;
+import com.bizrateinsights.selenium.Devices;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test run ingestion: the Gson parse of an SQS record body into a {@link TestTrigger}, as every record of a batch
+ * goes through before its test runs. "method" is a single-method trigger of the first attempt, "shard" a 20 method
+ * shard, "retry" a backed off retry of a matrix cell with fail-fast settings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SqsBodyParseBenchmark {
+
+    private static final Gson GSON = new Gson();
+
+    @Param({"method", "shard", "retry"})
+    public String trigger;
+
+    private String body;
+
+    @Setup
+    public void setup() {
+        TestTrigger.TestTriggerBuilder builder = TestTrigger.builder()
+                .runId(String.valueOf(UUID.randomUUID()))
+                .testId(String.valueOf(UUID.randomUUID()))
+                .testClass(SyntheticTestJar.PACKAGE + ".Synthetic0_Test")
+                .testCount(10000)
+                .retryCount(0)
+                .expectedMillis(12000L)
+                .suiteStartedAt(System.currentTimeMillis())
+                .predictedMakespanMillis(600000L);
+        switch (trigger) {
+            case "method":
+                builder.method("test0");
+                break;
+            case "shard":
+                List<String> methods = new ArrayList<>();
+                for (int i = 0; i < 20; i++) {
+                    methods.add("test" + i);
+                }
+                builder.methods(methods);
+                break;
+            case "retry":
+                builder.method("test0")
+                        .retryCount(2)
+                        .browser(Browsers.CHROMIUM)
+                        .device(Devices.MOBILE)
+                        .notBefore(System.currentTimeMillis())
+                        .retryCostMillis(24000L)
+                        .failFastFailures(50)
+                        .failFastWithin(100);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown trigger " + trigger);
+        }
+        body = GSON.toJson(builder.build());
+    }
+
+    @Benchmark
+    public TestTrigger parseTrigger() {
+        return GSON.fromJson(body, TestTrigger.class);
+    }
+}
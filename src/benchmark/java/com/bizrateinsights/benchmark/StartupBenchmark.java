@@ -0,0 +1,213 @@
+package com.bizrateinsights.benchmark;
+
+import com.bizrateinsights.ExampleRequestHandler;
+import com.bizrateinsights.clients.SQSOperationsClient;
+import com.bizrateinsights.dispatch.SqsTestDispatcher;
+import com.bizrateinsights.model.TestTrigger;
+import com.bizrateinsights.results.LocalResultStore;
+import com.bizrateinsights.tracking.InMemoryCompletionTracker;
+import com.google.gson.Gson;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Measures the cold start of every event type: the classes loaded and the time until the first handleRequest returns.
+ * Each event type runs in a fresh JVM started with -verbose:class, so the classes it loaded can be attributed to
+ * Selenium, Jersey, Reflections and the AWS SDK. The handler is wired to in-process stand-ins, so it runs offline.
+ * <p>
+ * "init" only constructs the handler with its default, lambda wiring. The other rows construct it with the stand-ins
+ * and handle one event: setup modes "all", "filter" and "method", and a non-browser test run through "test" (direct
+ * invocation) and "sqs" (a batch of one record).
+ * <p>
+ * mvn -Pbenchmark compile exec:java -Dbenchmark.class=com.bizrateinsights.benchmark.StartupBenchmark
+ */
+public class StartupBenchmark {
+
+    private static final List<String> EVENTS = Arrays.asList("init", "all", "filter", "method", "test", "sqs");
+    private static final String START_MARKER = "STARTUP-BENCHMARK-START";
+    private static final String RESULT_MARKER = "STARTUP-BENCHMARK-RESULT,";
+    private static final String TEST_CLASS = "com.bizrateinsights.tests.ExampleRequestHandler_Test";
+    private static final String NON_BROWSER_TEST = "test2";
+    private static final Map<String, String> LIBRARIES = new LinkedHashMap<>();
+
+    static {
+        LIBRARIES.put("selenium", "org.openqa.");
+        LIBRARIES.put("jersey", "org.glassfish.jersey.");
+        LIBRARIES.put("reflections", "org.reflections.");
+        LIBRARIES.put("awsSdk", "com.amazonaws.");
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            probe(args[0]);
+            return;
+        }
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String classpath = getClasspath();
+        System.out.println("event,classesLoaded," + String.join("Classes,", LIBRARIES.keySet()) + "Classes,millisToFirstReturn,jvmUptimeMillis");
+        for (String event : EVENTS) {
+            Process process = new ProcessBuilder(java, "-verbose:class", "-cp", classpath, StartupBenchmark.class.getName(), event)
+                    .redirectErrorStream(true)
+                    .start();
+            report(event, process);
+        }
+    }
+
+    /**
+     * Classpath of this benchmark. exec:java runs it in a class loader of its own, not on java.class.path.
+     */
+    static String getClasspath() {
+        ClassLoader classLoader = StartupBenchmark.class.getClassLoader();
+        if (!(classLoader instanceof URLClassLoader)) {
+            return System.getProperty("java.class.path");
+        }
+        List<String> entries = new ArrayList<>();
+        for (URL url : ((URLClassLoader) classLoader).getURLs()) {
+            entries.add(new File(url.getPath()).getAbsolutePath());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static void report(String event, Process process) throws Exception {
+        Map<String, Integer> libraryClasses = new LinkedHashMap<>();
+        LIBRARIES.keySet().forEach(x -> libraryClasses.put(x, 0));
+        String result = null;
+        boolean started = false;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(START_MARKER)) {
+                    started = true;
+                } else if (line.startsWith(RESULT_MARKER)) {
+                    result = line.substring(RESULT_MARKER.length());
+                } else if (started) {
+                    String loadedClass = getLoadedClass(line);
+                    if (loadedClass != null) {
+                        LIBRARIES.forEach((library, prefix) -> {
+                            if (loadedClass.startsWith(prefix)) {
+                                libraryClasses.merge(library, 1, Integer::sum);
+                            }
+                        });
+                    }
+                }
+            }
+        }
+        process.waitFor();
+
+        if (result == null) {
+            System.out.println(event + ",failed with exit code " + process.exitValue());
+            return;
+        }
+        String[] fields = result.split(",");
+        StringBuilder row = new StringBuilder(event).append(',').append(fields[0]);
+        libraryClasses.values().forEach(x -> row.append(',').append(x));
+        System.out.println(row.append(',').append(fields[1]).append(',').append(fields[2]));
+    }
+
+    /**
+     * @return the class of a -verbose:class line, I.E. "[Loaded x.Y from ...]" on java 8 or "[...][class,load] x.Y source: ..." after
+     */
+    private static String getLoadedClass(String line) {
+        int start;
+        if (line.startsWith("[Loaded ")) {
+            start = "[Loaded ".length();
+        } else if (line.contains("[class,load] ")) {
+            start = line.indexOf("[class,load] ") + "[class,load] ".length();
+        } else {
+            return null;
+        }
+        int end = line.indexOf(' ', start);
+        return end < 0 ? null : line.substring(start, end);
+    }
+
+    /**
+     * Runs in the forked JVM: construct the handler and handle one event, then print the measurements.
+     */
+    private static void probe(String event) throws Exception {
+        ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+        Map<String, Object> request = buildEvent(event);
+        File resultsDir = Files.createTempDirectory("startup-benchmark").toFile();
+        System.out.println(START_MARKER);
+        System.out.flush();
+
+        long loadedBefore = classLoading.getTotalLoadedClassCount();
+        long start = System.nanoTime();
+        if (request == null) {
+            new ExampleRequestHandler();
+        } else {
+            ExampleRequestHandler handler = new ExampleRequestHandler(
+                    new SqsTestDispatcher(new SQSOperationsClient(new LocalSQS(0)), "startup.fifo", 8, 3),
+                    new InMemoryCompletionTracker(), new LocalResultStore(resultsDir.getPath()), x -> { });
+            handler.handleRequest(request, null);
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        long loaded = classLoading.getTotalLoadedClassCount() - loadedBefore;
+
+        System.out.println(RESULT_MARKER + loaded + "," + millis + "," + ManagementFactory.getRuntimeMXBean().getUptime());
+        System.out.flush();
+        System.exit(0); //dispatcher and notifier threads would keep the JVM alive
+    }
+
+    private static Map<String, Object> buildEvent(String event) {
+        Map<String, Object> request = new HashMap<>();
+        switch (event) {
+            case "init":
+                return null;
+            case "all":
+                request.put("run", "all");
+                return request;
+            case "filter":
+                request.put("run", "filter");
+                request.put("nameContains", "test");
+                return request;
+            case "method":
+                request.put("run", "method");
+                request.put("class", TEST_CLASS);
+                request.put("method", NON_BROWSER_TEST);
+                return request;
+            case "test":
+                request.put("run", "test");
+                request.put("trigger", new Gson().fromJson(new Gson().toJson(buildTrigger()), Map.class));
+                return request;
+            case "sqs":
+                Map<String, Object> record = new HashMap<>();
+                record.put("messageId", String.valueOf(UUID.randomUUID()));
+                record.put("receiptHandle", String.valueOf(UUID.randomUUID()));
+                record.put("eventSourceARN", "arn:aws:sqs:us-west-2:000000000000:startup.fifo");
+                record.put("body", new Gson().toJson(buildTrigger()));
+                request.put("Records", Collections.singletonList(record));
+                return request;
+            default:
+                throw new IllegalArgumentException("Unknown event: " + event);
+        }
+    }
+
+    private static TestTrigger buildTrigger() {
+        return TestTrigger.builder()
+                .testClass(TEST_CLASS)
+                .method(NON_BROWSER_TEST)
+                .runId(String.valueOf(UUID.randomUUID()))
+                .testId(String.valueOf(UUID.randomUUID()))
+                .testCount(1)
+                .retryCount(0)
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.bizrateinsights.benchmark;
+
+import com.bizrateinsights.model.TestResultRecord;
+import com.bizrateinsights.results.ManifestAggregator;
+import com.bizrateinsights.results.SuiteSummary;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The end of a suite: aggregating resultCount result keys from an {@link InMemoryResultStore} into the manifest and
+ * the report sent with the final notification, and building the report alone from records already read. One in
+ * twenty tests fails and is retried, one in a hundred times out, and one in a hundred stored a duplicate result, I.E.
+ * after an SQS redelivery.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SuiteReportBenchmark {
+
+    private static final Gson GSON = new Gson();
+    private static final int READ_AHEAD = 16;
+
+    @Param({"1000", "10000"})
+    public int resultCount;
+
+    private InMemoryResultStore resultStore;
+    private String runId;
+    private List<TestResultRecord> records;
+    private int keyCount;
+
+    @Setup
+    public void setup() {
+        resultStore = new InMemoryResultStore();
+        runId = String.valueOf(UUID.randomUUID());
+        records = new ArrayList<>(resultCount);
+        keyCount = 0;
+        for (int i = 0; keyCount < resultCount; i++) {
+            String testClass = SyntheticTestJar.PACKAGE + ".Synthetic" + i / SyntheticTestJar.TESTS_PER_CLASS + "_Test";
+            String method = "test" + i % SyntheticTestJar.TESTS_PER_CLASS;
+            String testId = String.valueOf(UUID.randomUUID());
+            if (i % 20 == 0) {
+                store(testClass, method, testId, 0, TestResultRecord.Status.FAILED, "", true);
+                store(testClass, method, String.valueOf(UUID.randomUUID()), 1, TestResultRecord.Status.PASSED, "", true);
+            } else if (i % 100 == 1) {
+                store(testClass, method, testId, 0, TestResultRecord.Status.TIMED_OUT, "~timeout", true);
+            } else {
+                boolean redelivered = i % 100 == 2;
+                store(testClass, method, testId, 0, TestResultRecord.Status.PASSED, "", !redelivered);
+                if (redelivered) {
+                    //a second delivery of the same attempt failed, its key is listed first so the manifest keeps it
+                    store(testClass, method, testId, 0, TestResultRecord.Status.FAILED, "", true);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param kept = false for a result the manifest leaves out in favor of a duplicate
+     */
+    private void store(String testClass, String method, String testId, int attempt, TestResultRecord.Status status, String suffix, boolean kept) {
+        boolean passed = status == TestResultRecord.Status.PASSED;
+        TestResultRecord record = TestResultRecord.builder()
+                .runId(runId)
+                .testId(testId)
+                .testClass(testClass)
+                .method(method)
+                .attempt(attempt)
+                .status(status)
+                .runTimeMillis(8000 + Math.floorMod(testId.hashCode(), 13) * 1000)
+                .failureHash(passed ? null : "3f2a9c1e")
+                .failureMessage(passed ? null : "Expected condition failed: waiting for visibility of element")
+                .retryCostMillis(attempt > 0 ? 9000 : 0)
+                .build();
+        resultStore.putResult(runId + "/" + testId + "~" + method + "~RetryCount:" + attempt + "~" + passed + suffix,
+                GSON.toJson(record));
+        keyCount++;
+        if (kept) {
+            records.add(record);
+        }
+    }
+
+    @Benchmark
+    public String aggregateReport() {
+        return new ManifestAggregator(resultStore, READ_AHEAD).aggregate(runId, x -> { }).getReport();
+    }
+
+    @Benchmark
+    public String buildReport() {
+        SuiteSummary summary = new SuiteSummary();
+        for (TestResultRecord record : records) {
+            summary.add(record);
+        }
+        return summary.getReport();
+    }
+}
@@ -0,0 +1,107 @@
+package com.bizrateinsights.benchmark;
+
+import com.bizrateinsights.index.TestIndex;
+import com.bizrateinsights.index.TestIndexEntry;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtMethod;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.annotation.Annotation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Writes a jar of generated junit test classes, so discovery can be measured at suite sizes the example tests never
+ * reach. Every class in {@link #PACKAGE} is named Synthetic[n]_Test and has {@link #TESTS_PER_CLASS} @Test methods,
+ * one @Test @Ignore method and one helper method, like a typical page test.
+ */
+public class SyntheticTestJar {
+
+    public static final String PACKAGE = "com.bizrateinsights.benchmark.synthetic";
+    public static final int TESTS_PER_CLASS = 5;
+
+    /**
+     * @param classCount = test classes in the jar
+     * @param indexed = also write the {@link TestIndex} the build would package with these classes
+     * @return the jar, under dir
+     */
+    public static File write(File dir, int classCount, boolean indexed) throws Exception {
+        Files.createDirectories(dir.toPath());
+        File jar = new File(dir, "synthetic-" + classCount + (indexed ? "-indexed" : "") + ".jar");
+        ClassPool pool = new ClassPool(true);
+        List<TestIndexEntry> entries = new ArrayList<>();
+
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath()))) {
+            //directory entries, so the package can be found on the classpath by the reflections scanner
+            String packagePath = "";
+            for (String directory : PACKAGE.split("\\.")) {
+                packagePath += directory + "/";
+                out.putNextEntry(new JarEntry(packagePath));
+                out.closeEntry();
+            }
+
+            for (int i = 0; i < classCount; i++) {
+                String className = PACKAGE + ".Synthetic" + i + "_Test";
+                write(out, className.replace('.', '/') + ".class", generateClass(pool, className));
+                for (int test = 0; test < TESTS_PER_CLASS; test++) {
+                    entries.add(new TestIndexEntry(className, "test" + test, false, Collections.emptyList()));
+                }
+                entries.add(new TestIndexEntry(className, "ignoredTest", true, Collections.emptyList()));
+            }
+
+            if (indexed) {
+                StringBuilder index = new StringBuilder("#class\tmethod\tignored\ttags\n");
+                for (TestIndexEntry entry : entries) {
+                    index.append(entry.toLine()).append('\n');
+                }
+                out.putNextEntry(new JarEntry("META-INF/"));
+                out.closeEntry();
+                write(out, TestIndex.RESOURCE_PATH, index.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return jar;
+    }
+
+    private static byte[] generateClass(ClassPool pool, String className) throws Exception {
+        CtClass testClass = pool.makeClass(className);
+        ConstPool constPool = testClass.getClassFile().getConstPool();
+        testClass.addConstructor(CtNewConstructor.defaultConstructor(testClass));
+        for (int test = 0; test < TESTS_PER_CLASS; test++) {
+            addMethod(testClass, constPool, "test" + test, "org.junit.Test");
+        }
+        addMethod(testClass, constPool, "ignoredTest", "org.junit.Test", "org.junit.Ignore");
+        addMethod(testClass, constPool, "openPage");
+        byte[] bytes = testClass.toBytecode();
+        testClass.detach();
+        return bytes;
+    }
+
+    private static void addMethod(CtClass testClass, ConstPool constPool, String name, String... annotations) throws Exception {
+        CtMethod method = CtNewMethod.make("public void " + name + "() {}", testClass);
+        if (annotations.length > 0) {
+            AnnotationsAttribute attribute = new AnnotationsAttribute(constPool, AnnotationsAttribute.visibleTag);
+            for (String annotation : annotations) {
+                attribute.addAnnotation(new Annotation(annotation, constPool));
+            }
+            method.getMethodInfo().addAttribute(attribute);
+        }
+        testClass.addMethod(method);
+    }
+
+    private static void write(JarOutputStream out, String name, byte[] bytes) throws IOException {
+        out.putNextEntry(new JarEntry(name));
+        out.write(bytes);
+        out.closeEntry();
+    }
+}
@@ -0,0 +1,91 @@
+package com.bizrateinsights.benchmark;
+
+import com.bizrateinsights.clients.SQSOperationsClient;
+import com.bizrateinsights.dispatch.SqsTestDispatcher;
+import com.bizrateinsights.dispatch.TestScheduler;
+import com.bizrateinsights.model.TestTrigger;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Setup mode trigger building for a suite of suiteSize single-method tests: the trigger builders, the
+ * longest-first schedule, the json of every trigger, and the whole enqueue through {@link SqsTestDispatcher} into a
+ * {@link LocalSQS} without simulated latency, so only the client side of the enqueue is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TriggerBuildBenchmark {
+
+    private static final Gson GSON = new Gson();
+    private static final String QUEUE_NAME = "benchmark.fifo";
+    private static final int TESTS_PER_CLASS = 5;
+
+    @Param({"100", "1000", "10000"})
+    public int suiteSize;
+
+    private String runId;
+    private List<TestTrigger> triggers;
+
+    @Setup
+    public void setup() {
+        runId = String.valueOf(UUID.randomUUID());
+        triggers = buildTriggers();
+    }
+
+    @Benchmark
+    public List<TestTrigger> buildTriggers() {
+        TestTrigger suiteTrigger = TestTrigger.builder()
+                .runId(runId)
+                .testCount(suiteSize)
+                .retryCount(0)
+                .build();
+        List<TestTrigger> built = new ArrayList<>(suiteSize);
+        for (int i = 0; i < suiteSize; i++) {
+            built.add(suiteTrigger.toBuilder()
+                    .testClass(SyntheticTestJar.PACKAGE + ".Synthetic" + i / TESTS_PER_CLASS + "_Test")
+                    .method("test" + i % TESTS_PER_CLASS)
+                    .testId(String.valueOf(UUID.randomUUID()))
+                    .expectedMillis(1000L + i % 97 * 250)
+                    .build());
+        }
+        return built;
+    }
+
+    @Benchmark
+    public TestScheduler.Schedule scheduleTriggers() {
+        return new TestScheduler(100, false).schedule(triggers, 0);
+    }
+
+    @Benchmark
+    public void serializeTriggers(Blackhole blackhole) {
+        for (TestTrigger trigger : triggers) {
+            blackhole.consume(GSON.toJson(trigger));
+        }
+    }
+
+    @Benchmark
+    public int dispatchTriggers() {
+        SqsTestDispatcher dispatcher = new SqsTestDispatcher(new SQSOperationsClient(new LocalSQS(0)), QUEUE_NAME, 8, 3);
+        return dispatcher.dispatch(triggers);
+    }
+}
@@ -0,0 +1,79 @@
+package com.bizrateinsights.benchmark;
+
+import com.bizrateinsights.clients.SQSOperationsClient;
+import com.bizrateinsights.dispatch.BatchTriggerDispatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Measures setup mode enqueue throughput against suite size, using {@link LocalSQS} in place of the real queue.
+ * <p>
+ * "serial" reproduces the original path of one getQueueUrl and one SendMessage per test, "batched" uses
+ * {@link BatchTriggerDispatcher}. Output is one csv row per suite size and mode.
+ * <p>
+ * mvn -Pbenchmark compile exec:java -Dbenchmark.class=com.bizrateinsights.benchmark.TriggerDispatchBenchmark
+ */
+public class TriggerDispatchBenchmark {
+
+    private static final String QUEUE_NAME = "benchmark.fifo";
+    private static final int[] SUITE_SIZES = {100, 1000, 4000};
+
+    public static void main(String[] args) {
+        long latencyMillis = Long.getLong("benchmark.sqs.latency.ms", 20);
+        int concurrency = Integer.getInteger("benchmark.dispatch.concurrency", 8);
+
+        System.out.println("suiteSize,mode,millis,triggersPerSecond,apiCalls");
+        for (int suiteSize : SUITE_SIZES) {
+            List<String> triggers = buildTriggers(suiteSize);
+            report(suiteSize, "serial", runSerial(triggers, latencyMillis));
+            report(suiteSize, "batched", runBatched(triggers, latencyMillis, concurrency));
+        }
+    }
+
+    private static List<String> buildTriggers(int suiteSize) {
+        String runId = String.valueOf(UUID.randomUUID());
+        List<String> triggers = new ArrayList<>(suiteSize);
+        for (int i = 0; i < suiteSize; i++) {
+            triggers.add("{\"class\": \"com.automationlambda.Benchmark_Test\", \"method\": \"test" + i + "\", " +
+                    "\"runId\": \"" + runId + "\", \"testId\": \"" + UUID.randomUUID() + "\", " +
+                    "\"testCount\": \"" + suiteSize + "\",\"retryCount\": \"0\"}");
+        }
+        return triggers;
+    }
+
+    private static Measurement runSerial(List<String> triggers, long latencyMillis) {
+        LocalSQS localSQS = new LocalSQS(latencyMillis);
+        long start = System.nanoTime();
+        for (String trigger : triggers) {
+            //the original client resolved the queue url for every message
+            String queueUrl = localSQS.getQueueUrl(QUEUE_NAME).getQueueUrl();
+            localSQS.sendMessage(queueUrl, trigger);
+        }
+        return new Measurement(System.nanoTime() - start, localSQS.getApiCallCount());
+    }
+
+    private static Measurement runBatched(List<String> triggers, long latencyMillis, int concurrency) {
+        LocalSQS localSQS = new LocalSQS(latencyMillis);
+        BatchTriggerDispatcher dispatcher = new BatchTriggerDispatcher(new SQSOperationsClient(localSQS), QUEUE_NAME, concurrency, 3);
+        long start = System.nanoTime();
+        dispatcher.dispatch(triggers, SQSOperationsClient::getContentDeduplicationId, SQSOperationsClient::getContentDeduplicationId);
+        return new Measurement(System.nanoTime() - start, localSQS.getApiCallCount());
+    }
+
+    private static void report(int suiteSize, String mode, Measurement measurement) {
+        double millis = measurement.nanos / 1_000_000.0;
+        System.out.printf("%d,%s,%.1f,%.1f,%d%n", suiteSize, mode, millis, suiteSize / (millis / 1000.0), measurement.apiCalls);
+    }
+
+    private static class Measurement {
+        private final long nanos;
+        private final long apiCalls;
+
+        private Measurement(long nanos, long apiCalls) {
+            this.nanos = nanos;
+            this.apiCalls = apiCalls;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.bizrateinsights;
+
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Hex digests of text and streams - deduplication ids, result versions, binary checksums and failure hashes.
+ */
+@UtilityClass
+public class Digests {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * @return a new SHA-256 digest, I.E. to update while streaming a file
+     */
+    @SneakyThrows
+    public MessageDigest newSha256() {
+        return MessageDigest.getInstance("SHA-256");
+    }
+
+    /**
+     * @return lower case hex SHA-256 of the text's UTF-8 bytes
+     */
+    public String sha256Hex(String text) {
+        return toHex(newSha256().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @return lower case hex SHA-1 of the text's UTF-8 bytes
+     */
+    @SneakyThrows
+    public String sha1Hex(String text) {
+        return toHex(MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @return two lower case hex characters per byte
+     */
+    public String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
@@ -2,27 +2,62 @@ package com.bizrateinsights;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
-import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.bizrateinsights.artifacts.ArtifactPipeline;
+import com.bizrateinsights.clients.AwsClients;
 import com.bizrateinsights.clients.S3OperationsClient;
 import com.bizrateinsights.clients.SQSOperationsClient;
+import com.bizrateinsights.dispatch.DurationEstimator;
+import com.bizrateinsights.dispatch.LambdaTestDispatcher;
+import com.bizrateinsights.dispatch.SqsTestDispatcher;
+import com.bizrateinsights.dispatch.TestDispatcher;
+import com.bizrateinsights.dispatch.TestScheduler;
+import com.bizrateinsights.dispatch.TestSharder;
+import com.bizrateinsights.execution.ExecutionClaims;
+import com.bizrateinsights.execution.SqsBatchProcessor;
+import com.bizrateinsights.execution.SuiteCancellation;
+import com.bizrateinsights.execution.TestWatchdog;
+import com.bizrateinsights.history.TestHistory;
+import com.bizrateinsights.history.TestStats;
+import com.bizrateinsights.impact.DependencyMap;
+import com.bizrateinsights.impact.DependencyRecorder;
+import com.bizrateinsights.metrics.InvocationMetrics;
+import com.bizrateinsights.metrics.Phase;
+import com.bizrateinsights.metrics.SuiteMetrics;
 import com.bizrateinsights.model.MetaConfig;
+import com.bizrateinsights.model.TestOutcome;
+import com.bizrateinsights.model.TestResultRecord;
+import com.bizrateinsights.model.TestTrigger;
+import com.bizrateinsights.notification.FileNotificationSink;
+import com.bizrateinsights.notification.NotificationSink;
+import com.bizrateinsights.notification.Notifier;
+import com.bizrateinsights.notification.SlackWebhookSink;
+import com.bizrateinsights.results.ManifestAggregator;
+import com.bizrateinsights.results.ResultReader;
+import com.bizrateinsights.results.ResultStore;
+import com.bizrateinsights.results.S3ResultStore;
+import com.bizrateinsights.results.SuiteSummary;
+import com.bizrateinsights.retry.FailureHistory;
+import com.bizrateinsights.retry.RetryPolicy;
+import com.bizrateinsights.selenium.LambdaTmpManager;
+import com.bizrateinsights.selenium.LambdaWebdriverFactory;
+import com.bizrateinsights.selenium.MatrixCell;
+import com.bizrateinsights.tracking.CompletionCount;
+import com.bizrateinsights.tracking.CompletionTracker;
+import com.bizrateinsights.tracking.DynamoDbCompletionTracker;
+import com.bizrateinsights.tracking.InMemoryCompletionTracker;
 import com.google.gson.Gson;
-import org.aeonbits.owner.ConfigFactory;
-import org.apache.commons.io.FileUtils;
+import org.aeonbits.owner.ConfigCache;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.junit.runner.Result;
-
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.client.Entity;
-import javax.ws.rs.client.Invocation;
-import javax.ws.rs.core.MediaType;
-import java.io.File;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -32,103 +67,364 @@ import java.util.concurrent.atomic.AtomicReference;
  * <p>
  * "{run: all}" json -> [Lambda] -> [SQS message for each test] -> [Lambda Invocation for Each Test]
  */
-public class ExampleRequestHandler implements RequestHandler<Map<String, Object>, Boolean> {
+public class ExampleRequestHandler implements RequestHandler<Map<String, Object>, Object> {
 
+    private static final long INIT_START_NANOS = System.nanoTime();
     private static final Logger LOG = LogManager.getLogger(ExampleRequestHandler.class);
-    private static final MetaConfig CONFIG = ConfigFactory.create(MetaConfig.class);
+    private static final MetaConfig CONFIG = ConfigCache.getOrCreate(MetaConfig.class);
     public static final int MAX_RETRY_COUNT = CONFIG.getMaxTestRetryCount();
+    private static final int MAX_VISIBILITY_SECONDS = 43200;
+    private static final String TIMEOUT_KEY_SUFFIX = "~timeout";
+    private static final String CANCELLED_KEY_SUFFIX = "~cancelled";
+    private static final String METRICS_PREFIX = "metrics/";
+    private static final String RETRIES_PREFIX = "retries/";
+    private static final String FINALIZED_PREFIX = "finalized/";
+    private static final String WAVE_RELEASED_SUFFIX = "~released";
+    private static final Gson GSON = new Gson();
+
+    /*
+     * Services are created on first use, so each mode only loads and connects what it needs. I.E. setup mode never
+     * builds the S3 clients or the upload threads, and test runs only build the SQS client to dispatch a retry.
+     */
+    private TestDispatcher testDispatcher;
+    private CompletionTracker completionTracker;
+    private ResultStore resultStore;
+    private final Notifier notifier;
+    private final RetryPolicy retryPolicy;
+    private FailureHistory failureHistory;
+    private TestHistory testHistory;
+    private ExecutionClaims executionClaims;
+    private SuiteCancellation suiteCancellation;
+    private DependencyMap dependencyMap;
+    private ExecutorService uploadExecutor;
+    private SQSOperationsClient sqsClient;
+    private S3OperationsClient s3Client;
+
+    public ExampleRequestHandler() {
+        this.notifier = new Notifier(createNotificationSink(), CONFIG.getNotificationQueueCapacity());
+        this.retryPolicy = createRetryPolicy();
+        InvocationMetrics.recordInit(INIT_START_NANOS);
+    }
 
     /**
-     * Get test count without filter
-     * @param pkg = base package
-     * @return test case count
+     * Wire the handler to other services, I.E. in-process stand-ins for a local suite run.
+     *
+     * @param notificationSink = receives suite start, progress and summary messages
      */
-    private Integer getTestCount(String pkg) {
-        AtomicReference<Integer> count = new AtomicReference<>(0);
-        List<String> allClasses = JunitUtils.getJunitTestClasses(pkg);
-        allClasses.forEach(x -> count.updateAndGet(v -> v + JunitUtils.getTestsInJunitClass(x).size()));
-        return count.get();
+    public ExampleRequestHandler(TestDispatcher testDispatcher, CompletionTracker completionTracker,
+                                 ResultStore resultStore, NotificationSink notificationSink) {
+        this(testDispatcher, completionTracker, resultStore, notificationSink, createRetryPolicy());
     }
 
     /**
-     * Get test count with a filter on method names
-     * @param pkg = base package
-     * @param filter = filter on testnames
-     * @return test case count
+     * Wire the handler to other services, retrying failed tests with the given policy instead of retry.strategy.
+     *
+     * @param notificationSink = receives suite start, progress and summary messages
      */
-    private Integer getTestCount(String pkg, String filter) {
-        AtomicReference<Integer> count = new AtomicReference<>(0);
-        List<String> allClasses = JunitUtils.getJunitTestClasses(pkg);
-        allClasses.forEach(x -> count.updateAndGet(v -> v + JunitUtils.getTestsInJunitClass(x, filter).size()));
-        return count.get();
+    public ExampleRequestHandler(TestDispatcher testDispatcher, CompletionTracker completionTracker,
+                                 ResultStore resultStore, NotificationSink notificationSink, RetryPolicy retryPolicy) {
+        this.testDispatcher = testDispatcher;
+        this.completionTracker = completionTracker;
+        this.resultStore = resultStore;
+        this.notifier = new Notifier(notificationSink, CONFIG.getNotificationQueueCapacity());
+        this.retryPolicy = retryPolicy;
+    }
+
+    private static RetryPolicy createRetryPolicy() {
+        return new RetryPolicy(RetryPolicy.Strategy.valueOf(CONFIG.getRetryStrategy().toUpperCase()),
+                MAX_RETRY_COUNT, CONFIG.getRetryBackoffBaseSeconds(), CONFIG.getRetryBackoffMaxSeconds());
+    }
+
+    private synchronized TestDispatcher getTestDispatcher() {
+        if (testDispatcher == null) {
+            testDispatcher = createTestDispatcher();
+        }
+        return testDispatcher;
+    }
+
+    private synchronized CompletionTracker getCompletionTracker() {
+        if (completionTracker == null) {
+            completionTracker = createCompletionTracker();
+        }
+        return completionTracker;
+    }
+
+    private synchronized ResultStore getResultStore() {
+        if (resultStore == null) {
+            resultStore = new S3ResultStore(getS3Client(), CONFIG.getRemoteResultsBucket(), CONFIG.getRemoteArtifactsBucket());
+        }
+        return resultStore;
+    }
+
+    private synchronized FailureHistory getFailureHistory() {
+        if (failureHistory == null) {
+            failureHistory = new FailureHistory(getResultStore(), CONFIG.getRetryQuarantineAfter());
+        }
+        return failureHistory;
+    }
+
+    private synchronized TestHistory getTestHistory() {
+        if (testHistory == null) {
+            testHistory = new TestHistory(getResultStore(), CONFIG.getHistoryWindow());
+        }
+        return testHistory;
+    }
+
+    private synchronized ExecutionClaims getExecutionClaims() {
+        if (executionClaims == null) {
+            executionClaims = new ExecutionClaims(getResultStore());
+        }
+        return executionClaims;
+    }
+
+    private synchronized SuiteCancellation getSuiteCancellation() {
+        if (suiteCancellation == null) {
+            suiteCancellation = new SuiteCancellation(getResultStore(), TimeUnit.SECONDS.toMillis(CONFIG.getCancelCheckSeconds()));
+        }
+        return suiteCancellation;
+    }
+
+    private synchronized DependencyMap getDependencyMap() {
+        if (dependencyMap == null) {
+            dependencyMap = new DependencyMap(getResultStore());
+        }
+        return dependencyMap;
     }
 
-    private boolean keyIsFailure(S3ObjectSummary objectSummary){
-        return objectSummary.getKey().contains("~false"); //key contains junit success value of "false"
+    private synchronized ExecutorService getUploadExecutor() {
+        if (uploadExecutor == null) {
+            uploadExecutor = ArtifactPipeline.newUploadExecutor(CONFIG.getArtifactUploadConcurrency());
+        }
+        return uploadExecutor;
     }
 
-    private boolean keyContainsRetry(S3ObjectSummary objectSummary){
-        return !objectSummary.getKey().contains("RetryCount:0"); //key does not have retry count of 0
+    private synchronized S3OperationsClient getS3Client() {
+        if (s3Client == null) {
+            s3Client = new S3OperationsClient();
+        }
+        return s3Client;
     }
 
-    private String getFailureReporting(List<S3ObjectSummary> objectSummaries) {
-        String failureReports = "";
-        for (S3ObjectSummary objectSummary : objectSummaries) {
-            if (keyIsFailure(objectSummary) || keyContainsRetry(objectSummary))
-                failureReports += objectSummary.getKey() + "\n";
+    /**
+     * Select where suite notifications go. "file" appends them to notification.file.path, I.E. for local runs.
+     */
+    private static NotificationSink createNotificationSink() {
+        switch (CONFIG.getNotificationSink()) {
+            case "slack":
+                //update the channel in meta.properties - you may have to set up your own slackbot on your workspace
+                return new SlackWebhookSink(CONFIG.getSlackHook(), CONFIG.getSlackChannel(), "Default", ":sunglasses:");
+            case "file":
+                return new FileNotificationSink(CONFIG.getNotificationFilePath());
+            default:
+                throw new IllegalArgumentException("Notification sink not supported: " + CONFIG.getNotificationSink());
         }
-        if (failureReports.isEmpty()){
-            return "No failures to report!";
+    }
+
+    /**
+     * Select how suite completion is tracked. "memory" only works when a whole suite runs in a single JVM.
+     */
+    private CompletionTracker createCompletionTracker() {
+        switch (CONFIG.getCompletionTracker()) {
+            case "memory":
+                return new InMemoryCompletionTracker();
+            case "dynamodb":
+                return new DynamoDbCompletionTracker(AwsClients.getDynamoDb(), CONFIG.getCompletionTable());
+            default:
+                throw new IllegalArgumentException("Completion tracker not supported: " + CONFIG.getCompletionTracker());
         }
-        return failureReports;
     }
 
     /**
-     * send a slack message with a simple report showing the test failures and retries. While the default reporting uses
-     * slack, it is recommended you update the reporting to integrate with your current workflow.
+     * Select how tests are started. "sqs" enqueues triggers on the FIFO queue polled by the lambda, "lambda" invokes
+     * the lambda asynchronously once per trigger.
+     */
+    private TestDispatcher createTestDispatcher() {
+        switch (CONFIG.getDispatchMode()) {
+            case "sqs":
+                return new SqsTestDispatcher(getSqsClient(), CONFIG.getSQSQueue(),
+                        CONFIG.getSQSDispatchConcurrency(), CONFIG.getSQSDispatchMaxAttempts());
+            case "lambda":
+                return new LambdaTestDispatcher(AwsClients.getLambdaAsync(), CONFIG.getLambdaFunctionName(), CONFIG.getLambdaFunctionQualifier(),
+                        CONFIG.getLambdaDispatchWindow(), CONFIG.getSQSDispatchMaxAttempts());
+            default:
+                throw new IllegalArgumentException("Dispatch mode not supported: " + CONFIG.getDispatchMode());
+        }
+    }
+
+    /**
+     * Get test count of discovered tests
+     * @param tests = test methods keyed by class
+     * @return test case count
+     */
+    private Integer getTestCount(Map<String, List<String>> tests) {
+        return tests.values().stream().mapToInt(List::size).sum();
+    }
+
+    private void dispatchTestTrigger(String clazz, String test, String runId, String testId, Integer testCount, Integer retryCount) {
+        TestTrigger trigger = TestTrigger.builder()
+                .testClass(clazz)
+                .method(test)
+                .runId(runId)
+                .testId(testId)
+                .testCount(testCount)
+                .retryCount(retryCount)
+                .build();
+
+        LOG.info("INVOKING SUITE WITH {}", trigger);
+        getTestDispatcher().dispatch(Collections.singletonList(trigger));
+    }
+
+    /**
+     * Expand every test into the browser and device combinations of its test matrix.
      *
-     * @param message = the message that is sent to slack
+     * @param tests = test methods keyed by class
+     * @param defaultCells = combinations of browser tests without a {@link com.bizrateinsights.TestMatrix}
+     * @return test methods keyed by class, per matrix cell. Tests without a matrix are under the null cell
      */
-    private void sendSlackMessage(String message) {
-        Client client = ClientBuilder.newClient();
-        Invocation.Builder invocationBuilder = client.target(CONFIG.getSlackHook())
-                .request(MediaType.APPLICATION_JSON_TYPE);
+    private Map<MatrixCell, Map<String, List<String>>> expandMatrix(Map<String, List<String>> tests, List<MatrixCell> defaultCells) {
+        Map<MatrixCell, Map<String, List<String>>> matrixTests = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> classTests : tests.entrySet()) {
+            for (String test : classTests.getValue()) {
+                List<MatrixCell> cells = JunitUtils.getMatrix(classTests.getKey(), test, defaultCells);
+                for (MatrixCell cell : cells.isEmpty() ? Collections.<MatrixCell>singletonList(null) : cells) {
+                    matrixTests.computeIfAbsent(cell, x -> new LinkedHashMap<>())
+                            .computeIfAbsent(classTests.getKey(), x -> new ArrayList<>())
+                            .add(test);
+                }
+            }
+        }
+        return matrixTests;
+    }
 
-        //update this to fit the needs of your project - you may have to set up your own slackbot on your workspace
-        invocationBuilder.post(Entity.json("{\"channel\": \"#your-slack-channel-here\", \"username\": \"Default\", \"text\": \"" + message + "\", \"icon_emoji\": \":sunglasses:\"}"));
+    /**
+     * @return test matrix cells from the entry json's "matrix", I.E. ["CHROMIUM/DESKTOP", "CHROMIUM/MOBILE"]
+     */
+    private List<MatrixCell> getDefaultMatrix(Map<String, Object> event) {
+        List<MatrixCell> cells = new ArrayList<>();
+        Object matrix = event.get("matrix");
+        if (matrix instanceof List) {
+            for (Object cell : (List<?>) matrix) {
+                cells.add(MatrixCell.parse(String.valueOf(cell)));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * @return test count of every matrix cell together
+     */
+    private Integer getMatrixTestCount(Map<MatrixCell, Map<String, List<String>>> matrixTests) {
+        return matrixTests.values().stream().mapToInt(this::getTestCount).sum();
     }
 
-    private void insertTestTrggerIntoSQS(String clazz, String test, String runId, String testId, Integer testCount, Integer retryCount) {
-        SQSOperationsClient sqsOperationsClient = new SQSOperationsClient();
-        String json = String.format(
-                "{\"class\": \"%s\", " +
-                        "\"method\": \"%s\", " +
-                        "\"runId\": \"%s\", " +
-                        "\"testId\": \"%s\", " +
-                        "\"testCount\": \"%s\"," +
-                        "\"retryCount\": \"%s\"}",
-                clazz, test, runId, testId, testCount, retryCount);
+    /**
+     * Build the triggers for a suite, one set per test matrix cell, each with its expected run time from the test
+     * history. With a shard target, the methods of each class are packed into shards that are expected to finish within
+     * the target, otherwise every method gets its own trigger.
+     *
+     * @param matrixTests = test methods keyed by class, per matrix cell
+     * @param shardSeconds = target shard duration, 0 to disable sharding
+     */
+    private List<TestTrigger> buildSuiteTriggers(Map<MatrixCell, Map<String, List<String>>> matrixTests, String runId, Integer testCount, long shardSeconds) {
+        List<TestTrigger> triggers = new ArrayList<>();
+        for (Map.Entry<MatrixCell, Map<String, List<String>>> cellTests : matrixTests.entrySet()) {
+            MatrixCell cell = cellTests.getKey();
+            //tests without recorded run times are expected to take the average of their class, else shard.default.test.seconds
+            DurationEstimator estimator = getTestHistory().getDurationEstimator(cell == null ? null : cell.toString(),
+                    TimeUnit.SECONDS.toMillis(CONFIG.getShardDefaultTestSeconds()));
+            TestTrigger cellTrigger = TestTrigger.builder()
+                    .runId(runId)
+                    .testCount(testCount)
+                    .retryCount(0)
+                    .browser(cell == null ? null : cell.getBrowser())
+                    .device(cell == null ? null : cell.getDevice())
+                    .build();
+
+            if (shardSeconds <= 0) {
+                for (Map.Entry<String, List<String>> classTests : cellTests.getValue().entrySet()) {
+                    for (String test : classTests.getValue()) {
+                        triggers.add(cellTrigger.toBuilder()
+                                .testClass(classTests.getKey())
+                                .method(test)
+                                .testId(String.valueOf(UUID.randomUUID()))
+                                .expectedMillis(estimator.estimateMillis(classTests.getKey(), test))
+                                .build());
+                    }
+                }
+                continue;
+            }
+
+            TestSharder sharder = new TestSharder(estimator, TimeUnit.SECONDS.toMillis(shardSeconds), CONFIG.getShardMaxMethods());
+            for (TestSharder.TestShard shard : sharder.shard(cellTests.getValue())) {
+                triggers.add(cellTrigger.toBuilder()
+                        .testClass(shard.getClassName())
+                        .methods(shard.getMethods())
+                        .testId(String.valueOf(UUID.randomUUID()))
+                        .expectedMillis(shard.getExpectedMillis())
+                        .build());
+            }
+        }
+        return triggers;
+    }
 
-        LOG.info("INVOKING SUITE WITH {}", json);
-        sqsOperationsClient.sendMessageToQueue(CONFIG.getSQSQueue(), json);
+    /**
+     * Order a suite's triggers longest expected run time first, and predict when its last test completes.
+     */
+    private TestScheduler.Schedule scheduleSuite(List<TestTrigger> triggers) {
+        TestScheduler.Schedule schedule = new TestScheduler(CONFIG.getScheduleConcurrency(), CONFIG.getScheduleFifoLanes())
+                .schedule(triggers, System.currentTimeMillis());
+        LOG.info("PREDICTED MAKESPAN {} ms AT CONCURRENCY {}", schedule.getPredictedMakespanMillis(), CONFIG.getScheduleConcurrency());
+        return schedule;
     }
 
-    //{ "run": "all" }
+    /**
+     * @return target shard duration from the entry json's "shardSeconds", or the configured default
+     */
+    private long getShardSeconds(Map<String, Object> event) {
+        Object shardSeconds = event.get("shardSeconds");
+        if (shardSeconds == null) {
+            return CONFIG.getShardTargetSeconds();
+        }
+        return Double.valueOf(String.valueOf(shardSeconds)).longValue();
+    }
+
+    /**
+     * Apply the entry json's optional "failFast" (failed results that cancel the suite) and "failFastWithin" (among
+     * how many of the suite's first results, every result when missing) to every trigger of a suite.
+     */
+    private List<TestTrigger> applyFailFast(List<TestTrigger> triggers, Map<String, Object> event) {
+        Object failures = event.get("failFast");
+        if (failures == null) {
+            return triggers;
+        }
+        Object within = event.get("failFastWithin");
+        List<TestTrigger> failFastTriggers = new ArrayList<>(triggers.size());
+        for (TestTrigger trigger : triggers) {
+            failFastTriggers.add(trigger.toBuilder()
+                    .failFastFailures(Double.valueOf(String.valueOf(failures)).intValue())
+                    .failFastWithin(within == null ? trigger.getTestCount() : Double.valueOf(String.valueOf(within)).intValue())
+                    .build());
+        }
+        return failFastTriggers;
+    }
+
+    //{ "run": "all", "shardSeconds": 120 (optional), "matrix": ["CHROMIUM/DESKTOP", "CHROMIUM/MOBILE"] (optional),
+    //  "failFast": 50 (optional), "failFastWithin": 100 (optional) }
     private Boolean handleEntry(Map<String, Object> event) {
         String testSuiteRunId = String.valueOf(UUID.randomUUID());
-        Integer testTotalCount = getTestCount("com.automationlambda");
-        List<String> allClasses = JunitUtils.getJunitTestClasses("com.automationlambda");
+        Map<MatrixCell, Map<String, List<String>>> allTests = expandMatrix(
+                JunitUtils.getJunitTests("com.automationlambda", ""), getDefaultMatrix(event));
+        Integer testTotalCount = getMatrixTestCount(allTests);
+        TestScheduler.Schedule schedule = scheduleSuite(applyFailFast(
+                buildSuiteTriggers(allTests, testSuiteRunId, testTotalCount, getShardSeconds(event)), event));
 
-        sendSlackMessage("Starting Example Archetype Lambda! \n" +
+        notifier.send("Starting Example Archetype Lambda! \n" +
                 "Testcount - " + testTotalCount + "\n" +
-                "SuiteRunId - " + testSuiteRunId);
+                "SuiteRunId - " + testSuiteRunId + "\n" +
+                "Predicted Makespan - " + TimeUnit.MILLISECONDS.toSeconds(schedule.getPredictedMakespanMillis()) + "s");
 
-        for (String clazz : allClasses) {
-            for (String test : JunitUtils.getTestsInJunitClass(clazz)) {
-                String testIndividualId = String.valueOf(UUID.randomUUID());
-                insertTestTrggerIntoSQS(clazz, test, testSuiteRunId, testIndividualId, testTotalCount, 0);
-            }
-        }
+        LOG.info("INVOKING SUITE {} WITH {} TESTS IN {} TRIGGERS", testSuiteRunId, testTotalCount, schedule.getTriggers().size());
+        getTestDispatcher().dispatch(schedule.getTriggers());
 
         return true;
     }
@@ -141,102 +437,572 @@ public class ExampleRequestHandler implements RequestHandler<Map<String, Object>
         String testSuiteRunId = String.valueOf(UUID.randomUUID());
         String testIndividualId = String.valueOf(UUID.randomUUID());
         Integer testTotalCount = 1;
-        sendSlackMessage("Starting Example Archetype Lambda (Singular Test)! \n" +
+        notifier.send("Starting Example Archetype Lambda (Singular Test)! \n" +
                 "Test Method - " + testMethod + "\n" +
                 "Test Class - " + testClass);
-        insertTestTrggerIntoSQS(testClass, testMethod, testSuiteRunId, testIndividualId, testTotalCount, 0);
+        dispatchTestTrigger(testClass, testMethod, testSuiteRunId, testIndividualId, testTotalCount, 0);
 
         return true;
     }
 
-    //{ "run" : "filter", "nameContains" : "string" }
+    //{ "run" : "filter", "nameContains" : "string", "shardSeconds": 120 (optional), "matrix": [...] (optional),
+    //  "failFast": 50 (optional), "failFastWithin": 100 (optional) }
     private Boolean handleFilterEntry(Map<String, Object> event) {
         String testSuiteRunId = String.valueOf(UUID.randomUUID());
         String filter = (String)event.get("nameContains");
-        Integer testTotalCount = getTestCount("com.automationlambda", filter);
-        List<String> allClasses = JunitUtils.getJunitTestClasses("com.automationlambda");
+        Map<MatrixCell, Map<String, List<String>>> allTests = expandMatrix(
+                JunitUtils.getJunitTests("com.automationlambda", filter), getDefaultMatrix(event));
+        Integer testTotalCount = getMatrixTestCount(allTests);
+        TestScheduler.Schedule schedule = scheduleSuite(applyFailFast(
+                buildSuiteTriggers(allTests, testSuiteRunId, testTotalCount, getShardSeconds(event)), event));
 
-        for (String clazz : allClasses) {
-            for (String test : JunitUtils.getTestsInJunitClass(clazz, filter)) {
-                String testIndividualId = String.valueOf(UUID.randomUUID());
-                insertTestTrggerIntoSQS(clazz, test, testSuiteRunId, testIndividualId, testTotalCount, 0);
-            }
-        }
+        LOG.info("INVOKING SUITE {} WITH {} TESTS IN {} TRIGGERS", testSuiteRunId, testTotalCount, schedule.getTriggers().size());
+        getTestDispatcher().dispatch(schedule.getTriggers());
 
-        sendSlackMessage("Starting Example Archetype Lambda (Filtered Tests)! \n" +
+        notifier.send("Starting Example Archetype Lambda (Filtered Tests)! \n" +
                 "Filter - " + filter + "\n" +
                 "Testcount - " + testTotalCount + "\n" +
-                "SuiteRunId - " + testSuiteRunId);
+                "SuiteRunId - " + testSuiteRunId + "\n" +
+                "Predicted Makespan - " + TimeUnit.MILLISECONDS.toSeconds(schedule.getPredictedMakespanMillis()) + "s");
 
         return true;
     }
 
-    //sqs event
-    private Boolean handleTestRun(Map<String, Object> event) {
+    //{ "run" : "impacted", "changed" : ["/checkout", "CartPage"], "shardSeconds": 120 (optional), "matrix": [...] (optional),
+    //  "failFast": 50 (optional), "failFastWithin": 100 (optional) }
+    private Boolean handleImpactedEntry(Map<String, Object> event) {
+        String testSuiteRunId = String.valueOf(UUID.randomUUID());
+        Object changedItems = event.get("changed");
+        if (!(changedItems instanceof List) || ((List<?>) changedItems).isEmpty()) {
+            throw new IllegalArgumentException("Impacted runs require a non-empty \"changed\" list of pages, components or classes");
+        }
+        List<String> changed = new ArrayList<>();
+        ((List<?>) changedItems).forEach(x -> changed.add(String.valueOf(x).trim()));
+
+        Map<String, List<String>> candidates = JunitUtils.getJunitTests("com.automationlambda", "");
+        Map<String, List<String>> impactedTests = getDependencyMap().selectImpacted(candidates, changed, CONFIG.getImpactIncludeUnmapped());
+        Map<MatrixCell, Map<String, List<String>>> allTests = expandMatrix(impactedTests, getDefaultMatrix(event));
+        Integer testTotalCount = getMatrixTestCount(allTests);
+        if (testTotalCount == 0) {
+            notifier.send("No tests are impacted by " + changed + ", nothing to run");
+            return true;
+        }
+        TestScheduler.Schedule schedule = scheduleSuite(applyFailFast(
+                buildSuiteTriggers(allTests, testSuiteRunId, testTotalCount, getShardSeconds(event)), event));
+
+        LOG.info("INVOKING SUITE {} WITH {} TESTS IN {} TRIGGERS", testSuiteRunId, testTotalCount, schedule.getTriggers().size());
+        getTestDispatcher().dispatch(schedule.getTriggers());
+
+        notifier.send("Starting Example Archetype Lambda (Impacted Tests)! \n" +
+                "Changed - " + changed + "\n" +
+                "Testcount - " + testTotalCount + " (" + getTestCount(impactedTests) + " of " + getTestCount(candidates) + " test methods)\n" +
+                "SuiteRunId - " + testSuiteRunId + "\n" +
+                "Predicted Makespan - " + TimeUnit.MILLISECONDS.toSeconds(schedule.getPredictedMakespanMillis()) + "s");
+
+        return true;
+    }
+
+    //{ "run" : "cancel", "runId" : "[Suite Run UUID]" }
+    private Boolean handleCancelEntry(Map<String, Object> event) {
+        String testSuiteRunId = (String) event.get("runId");
+        if (testSuiteRunId == null || testSuiteRunId.isEmpty()) {
+            throw new IllegalArgumentException("Cancel requires the \"runId\" of the suite");
+        }
+        getSuiteCancellation().cancel(testSuiteRunId, "cancelled on request");
+        notifier.send(testSuiteRunId + " - Suite cancelled on request, its remaining tests will be skipped");
+        return true;
+    }
+
+    /**
+     * Number of browser tests an invocation runs side by side, derived from the lambda's memory.
+     */
+    private int getBrowserConcurrency(Context context) {
+        if (context == null) {
+            return 1;
+        }
+        return Math.max(1, context.getMemoryLimitInMB() / CONFIG.getBrowserMemoryMb());
+    }
+
+    //sqs event - every record of the batch is run, and failed records are reported as partial batch failures
+    private Map<String, Object> handleTestRun(Map<String, Object> event, Context context) {
         LOG.info("INGESTING FROM SQS: {}", event.toString());
 
-        Gson gson = new Gson();
-        S3OperationsClient s3OperationsClient = new S3OperationsClient();
+        long deadline = getDeadline(context);
+        List<Map<String, Object>> records = (List<Map<String, Object>>) event.get("Records");
+        SqsBatchProcessor processor = new SqsBatchProcessor(CONFIG.getTestConcurrency(), getBrowserConcurrency(context));
+        Map<String, Object> response = processor.process(records,
+                x -> GSON.fromJson(x, TestTrigger.class),
+                x -> runTestTrigger(x, deadline),
+                //cancelled triggers are drained on the test pool, without waiting for a browser slot
+                x -> !getSuiteCancellation().isCancelled(x.getRunId()) && JunitUtils.usesBrowser(x.getTestClass(), x.getTestMethods()),
+                this::deferRecord,
+                deadline);
 
-        List<Map<String, Object>> record = (List<Map<String, Object>>) event.get("Records");
-        String bodyString = (String) record.get(0).get("body");
-        Map<String, String> bodyMap = gson.fromJson(bodyString, Map.class);
+        LambdaTmpManager.cleanTestFiles(LambdaWebdriverFactory.hasPooledSessions()); //clear browser state, keeping the cached binaries
+        return response;
+    }
 
-        String testClass = bodyMap.get("class");
-        String testMethod = bodyMap.get("method");
-        String testSuiteRunId = bodyMap.get("runId");
-        String testIndividualId = bodyMap.get("testId");
-        String testTotalCount = bodyMap.get("testCount");
-        String retryCount = bodyMap.get("retryCount");
+    private synchronized SQSOperationsClient getSqsClient() {
+        if (sqsClient == null) {
+            sqsClient = new SQSOperationsClient();
+        }
+        return sqsClient;
+    }
 
-        LOG.info("Starting Test: SuiteID:{} - TestID:{} - Class:{} - Method:{}", testSuiteRunId, testIndividualId, testClass, testMethod);
-        Result result = JunitUtils.runJunitTest(testClass, testMethod);
-        result.getFailures().forEach(x->LOG.info(x.getTrace())); //log errors in cloudwatch
+    /**
+     * Hand a backed off retry that was delivered early back to its queue, hidden until it may run.
+     *
+     * @return true if the record was deferred and must not run now
+     */
+    private boolean deferRecord(Map<String, Object> record, TestTrigger trigger) {
+        if (trigger.getNotBefore() == null || getSuiteCancellation().isCancelled(trigger.getRunId())) {
+            return false;
+        }
+        long waitMillis = trigger.getNotBefore() - System.currentTimeMillis();
+        if (waitMillis < TimeUnit.SECONDS.toMillis(1)) {
+            return false;
+        }
+        String queueArn = (String) record.get("eventSourceARN");
+        String queueName = queueArn.substring(queueArn.lastIndexOf(':') + 1);
+        int visibilitySeconds = (int) Math.min(MAX_VISIBILITY_SECONDS, TimeUnit.MILLISECONDS.toSeconds(waitMillis) + 1);
+        getSqsClient().changeMessageVisibility(queueName, (String) record.get("receiptHandle"), visibilitySeconds);
+        LOG.info("DEFERRING {} FOR {} SECONDS", trigger.getTestId(), visibilitySeconds);
+        return true;
+    }
 
-        String keyName = testSuiteRunId + "/" + testIndividualId + "~" + testMethod + "~RetryCount:" + retryCount + "~" + result.wasSuccessful();
+    //{ "run" : "test", "trigger" : { test runner json } } - direct invocation from LambdaTestDispatcher
+    private Boolean handleDirectTestRun(Map<String, Object> event, Context context) {
+        LOG.info("INGESTING FROM DIRECT INVOCATION: {}", event.toString());
 
-        if (!result.wasSuccessful()) {
+        Object trigger = event.get(LambdaTestDispatcher.TRIGGER_KEY);
+        Boolean result = runTestTrigger(GSON.fromJson(GSON.toJsonTree(trigger), TestTrigger.class), getDeadline(context));
 
-            try {
-                s3OperationsClient.uploadFileToS3(CONFIG.getRemoteArtifactsBucket(), keyName + ".png", new File("/tmp/screenshot.png"));
-            } catch (Exception e) {
-                LOG.info("No screenshot recorded.");
+        LambdaTmpManager.cleanTestFiles(LambdaWebdriverFactory.hasPooledSessions()); //clear browser state, keeping the cached binaries
+        return result;
+    }
+
+    /**
+     * @return epoch millis by which tests must stop, leaving timeout.safety.margin.seconds to record their results
+     */
+    private long getDeadline(Context context) {
+        if (context == null) {
+            return Long.MAX_VALUE;
+        }
+        return System.currentTimeMillis() + context.getRemainingTimeInMillis() - TimeUnit.SECONDS.toMillis(CONFIG.getTimeoutSafetyMarginSeconds());
+    }
+
+    /**
+     * Run the tests of a trigger, then store each result, retry each failure, and report the suite once its last test
+     * has completed.
+     *
+     * @param deadline = epoch millis by which the tests must stop
+     * @return true if every test of the trigger passed
+     */
+    public Boolean runTestTrigger(TestTrigger trigger, long deadline) {
+        String testClass = trigger.getTestClass();
+        List<String> testMethods = trigger.getTestMethods();
+        String testSuiteRunId = trigger.getRunId();
+        String testIndividualId = trigger.getTestId();
+        Integer testTotalCount = trigger.getTestCount();
+        Integer retryCount = trigger.getRetryCount();
+
+        if (getSuiteCancellation().isCancelled(testSuiteRunId)) {
+            skipCancelled(trigger, deadline);
+            return true;
+        }
+
+        ExecutionClaims.Status claim = claimExecution(trigger, deadline);
+        if (claim == ExecutionClaims.Status.COMPLETED) {
+            LOG.info("SKIPPING DUPLICATE DELIVERY OF COMPLETED TEST {}", testIndividualId);
+            return true;
+        }
+        if (claim == ExecutionClaims.Status.RUNNING) {
+            //not run and not acknowledged, so the message comes back once the running invocation has completed it or died
+            throw new IllegalStateException("Test " + testIndividualId + " is already running in another invocation");
+        }
+
+        InvocationMetrics metrics = InvocationMetrics.begin(testSuiteRunId, testIndividualId);
+        ArtifactPipeline artifacts = new ArtifactPipeline(getResultStore(), getUploadExecutor(),
+                x -> getResultKey(trigger, x, false, false), metrics);
+        artifacts.bind();
+        DependencyRecorder dependencies = new DependencyRecorder();
+        dependencies.bind();
+        MatrixCell.bind(trigger.getMatrixCell());
+        boolean metricsStored = false;
+        try {
+            waitForBackoff(trigger, deadline);
+            LOG.info("Starting Test: SuiteID:{} - TestID:{} - Class:{} - Methods:{} - Matrix:{}", testSuiteRunId, testIndividualId, testClass, testMethods, trigger.getMatrixCell());
+            long testStart = System.nanoTime();
+            List<TestOutcome> outcomes = new TestWatchdog().run(testClass, testMethods, deadline);
+            InvocationMetrics.record(Phase.TEST, testStart);
+
+            boolean allSuccessful = true;
+            List<String> finalKeys = new ArrayList<>();
+            for (TestOutcome outcome : outcomes) {
+                String testMethod = outcome.getMethod();
+                outcome.getFailures().forEach(x->LOG.info(x.getTrace())); //log errors in cloudwatch
+                allSuccessful &= outcome.isSuccessful();
+
+                String keyName = getResultKey(trigger, testMethod, outcome.isSuccessful(), outcome.isTimedOut());
+
+                boolean quarantined = !outcome.isSuccessful() && getFailureHistory().isQuarantined(testClass, testMethod,
+                        trigger.getMatrixCell() == null ? null : trigger.getMatrixCell().toString());
+                if (!outcome.isSuccessful() && retryPolicy.shouldRetry(retryCount, quarantined)) {
+                    //failed and timed out methods of a shard are retried individually
+                    long dispatchStart = System.nanoTime();
+                    scheduleRetry(trigger, outcome);
+                    InvocationMetrics.record(Phase.DISPATCH, dispatchStart);
+                    continue; //test failed, but don't execute teardown before retrying
+                }
+
+                artifacts.putResult(keyName, GSON.toJson(TestResultRecord.of(trigger, outcome, quarantined,
+                        dependencies.getDependencies(testMethod))));
+                finalKeys.add(keyName);
+            }
+
+            //screenshots, logs and results were uploading while the outcomes were handled
+            artifacts.join();
+            if (CONFIG.getExecutionClaimsEnabled()) {
+                getExecutionClaims().complete(trigger);
+            }
+
+            //the metrics record must be stored before the suite can complete, so the last test can aggregate it
+            if (!finalKeys.isEmpty()) {
+                storeMetrics(metrics);
+                metricsStored = true;
             }
 
-            if (Integer.parseInt(retryCount) < MAX_RETRY_COUNT) {
-                String retryTestId = String.valueOf(UUID.randomUUID());
-                insertTestTrggerIntoSQS(testClass, testMethod, testSuiteRunId, retryTestId, Integer.parseInt(testTotalCount), Integer.parseInt(retryCount) + 1);
-                return false; //test failed, but don't execute teardown before retrying
+            recordCompletions(trigger, finalKeys, deadline);
+
+            if (retryPolicy.defersToWave(retryCount)) {
+                releaseRetryWave(testSuiteRunId, testTotalCount);
+            }
+            return allSuccessful;
+        } finally {
+            ArtifactPipeline.unbind();
+            DependencyRecorder.unbind();
+            MatrixCell.bind(null);
+            if (!metricsStored) {
+                storeMetrics(metrics);
+            }
+            metrics.end();
+        }
+    }
+
+    /**
+     * Count the final results of a trigger towards its suite, cancel the suite if it failed fast, and report the suite
+     * once its last test has completed.
+     *
+     * @param deadline = epoch millis by which the trigger's tests had to stop
+     */
+    private void recordCompletions(TestTrigger trigger, List<String> finalKeys, long deadline) {
+        String testSuiteRunId = trigger.getRunId();
+        Integer testTotalCount = trigger.getTestCount();
+        for (String keyName : finalKeys) {
+            //suite ending trigger - all test results uploaded to s3
+            boolean failed = isFailedResult(keyName);
+            CompletionCount count = getCompletionTracker().recordCompletion(testSuiteRunId, keyName, failed);
+            int completedCount = count.getCompleted();
+            if (isProgressMilestone(completedCount, testTotalCount)) {
+                notifier.update(testSuiteRunId, testSuiteRunId + " - " + completedCount + "/" + testTotalCount + " tests completed");
+            }
+            if (failed) {
+                checkFailFast(trigger, count);
+            }
+            if (completedCount == testTotalCount) {
+                finalizeSuite(trigger, deadline);
+            }
+        }
+    }
+
+    /**
+     * Aggregate the manifest, fold the suite into the histories and send its report. Several invocations may see the
+     * last test complete, I.E. when two finish together, so only the one that creates the suite's finalized/[runId]
+     * marker goes on.
+     *
+     * @param deadline = epoch millis by which the trigger's tests had to stop, finalizing may use half of the safety
+     * margin after it to read the suite's timings
+     */
+    private void finalizeSuite(TestTrigger trigger, long deadline) {
+        String testSuiteRunId = trigger.getRunId();
+        if (!getResultStore().putResultIfAbsent(FINALIZED_PREFIX + testSuiteRunId, String.valueOf(System.currentTimeMillis()))) {
+            LOG.info("SUITE {} IS ALREADY BEING FINALIZED", testSuiteRunId);
+            return;
+        }
+
+        FailureHistory.Update historyUpdate = getFailureHistory().update(testSuiteRunId);
+        TestHistory.Update statsUpdate = getTestHistory().update(testSuiteRunId);
+        DependencyMap.Update dependencyUpdate = getDependencyMap().update(testSuiteRunId);
+        SuiteSummary summary = new ManifestAggregator(getResultStore(), CONFIG.getManifestReadAhead()).aggregate(testSuiteRunId, x -> {
+            historyUpdate.add(x);
+            statsUpdate.add(x);
+            dependencyUpdate.add(x);
+        });
+        historyUpdate.save();
+        statsUpdate.save();
+        dependencyUpdate.save();
+        String cancelReason = getSuiteCancellation().getReason(testSuiteRunId);
+        notifier.send(testSuiteRunId + " - Example Archetype Lambda has finished running all tests! \n" +
+                (cancelReason == null ? "" : "Cancelled - " + cancelReason + "\n") +
+                summary.getReport() +
+                "Manifest: " + ManifestAggregator.getManifestKey(testSuiteRunId) + "\n" +
+                getMakespanReport(trigger) +
+                "Timings: \n" + getSuiteMetricsReport(testSuiteRunId, getMetricsDeadline(deadline)) +
+                getFlakyReport());
+    }
+
+    private static boolean isFailedResult(String keyName) {
+        return keyName.contains("~false") && !keyName.endsWith(CANCELLED_KEY_SUFFIX);
+    }
+
+    /**
+     * Cancel the suite once failFastFailures of its first failFastWithin results have failed. Failures are counted by
+     * the completion tracker, so checking costs nothing beyond recording the completion.
+     */
+    private void checkFailFast(TestTrigger trigger, CompletionCount count) {
+        int completedCount = count.getCompleted();
+        if (trigger.getFailFastFailures() == null || completedCount > trigger.getFailFastWithin()) {
+            return;
+        }
+        int failures = count.getFailed();
+        if (failures >= trigger.getFailFastFailures() && !getSuiteCancellation().isCancelled(trigger.getRunId())) {
+            String reason = "fail-fast, " + failures + " of the first " + completedCount + " results failed";
+            getSuiteCancellation().cancel(trigger.getRunId(), reason);
+            notifier.send(trigger.getRunId() + " - Suite cancelled (" + reason + "), its remaining tests will be skipped");
+        }
+    }
+
+    /**
+     * Skip the tests of a cancelled suite's trigger: each is stored as a SKIPPED result, so the suite still completes
+     * and its report counts the skipped invocations, without launching a browser. Retries held for the suite's wave
+     * only complete once they are dispatched, so a skipped first-pass trigger releases the wave like a run one would,
+     * and the released retries are skipped in turn.
+     */
+    private void skipCancelled(TestTrigger trigger, long deadline) {
+        LOG.info("SKIPPING {} OF CANCELLED SUITE {}", trigger.getTestId(), trigger.getRunId());
+        List<String> finalKeys = new ArrayList<>();
+        for (String method : trigger.getTestMethods()) {
+            String keyName = getResultKey(trigger, method, false, false) + CANCELLED_KEY_SUFFIX;
+            getResultStore().putResult(keyName, GSON.toJson(TestResultRecord.skipped(trigger, method)));
+            finalKeys.add(keyName);
+        }
+        recordCompletions(trigger, finalKeys, deadline);
+
+        if (retryPolicy.defersToWave(trigger.getRetryCount())) {
+            releaseRetryWave(trigger.getRunId(), trigger.getTestCount());
+        }
+    }
+
+    /**
+     * Claim this attempt of a trigger, leased until the invocation ends, or for at most execution.lease.max.seconds.
+     *
+     * @param deadline = epoch millis by which the tests must stop
+     * @return ACQUIRED if the trigger should run, always when execution.claims.enabled is off
+     */
+    private ExecutionClaims.Status claimExecution(TestTrigger trigger, long deadline) {
+        if (!CONFIG.getExecutionClaimsEnabled()) {
+            return ExecutionClaims.Status.ACQUIRED;
+        }
+        long now = System.currentTimeMillis();
+        long invocationEnd = deadline == Long.MAX_VALUE ? Long.MAX_VALUE
+                : deadline + TimeUnit.SECONDS.toMillis(CONFIG.getTimeoutSafetyMarginSeconds());
+        return getExecutionClaims().claim(trigger,
+                Math.min(invocationEnd, now + TimeUnit.SECONDS.toMillis(CONFIG.getExecutionLeaseMaxSeconds())));
+    }
+
+    /**
+     * @return [Suite Run UUID]/[Test Run UUID]~[Junit Method]~RetryCount:[n]~[true/false](~timeout)
+     */
+    private String getResultKey(TestTrigger trigger, String method, boolean successful, boolean timedOut) {
+        return trigger.getRunId() + "/" + trigger.getTestId() + "~" + method + "~RetryCount:" + trigger.getRetryCount()
+                + "~" + successful + (timedOut ? TIMEOUT_KEY_SUFFIX : "");
+    }
+
+    /**
+     * Wait out the rest of a backoff that the queue could not, I.E. with direct invocation or local runs. At most half
+     * of the time left before the deadline is spent waiting, so the test still gets to run.
+     */
+    private void waitForBackoff(TestTrigger trigger, long deadline) {
+        if (trigger.getNotBefore() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long waitMillis = Math.min(trigger.getNotBefore() - now, (deadline - now) / 2);
+        if (waitMillis > 0) {
+            LOG.info("WAITING {} ms BEFORE RETRYING {}", waitMillis, trigger.getTestId());
+            try {
+                Thread.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+        }
+    }
 
+    /**
+     * Retry a failed method of a trigger on its own, now, after a backoff, or with the suite's retry wave.
+     */
+    private void scheduleRetry(TestTrigger trigger, TestOutcome outcome) {
+        int nextRetryCount = trigger.getRetryCount() + 1;
+        TestTrigger retry = TestTrigger.builder()
+                .testClass(trigger.getTestClass())
+                .method(outcome.getMethod())
+                .runId(trigger.getRunId())
+                .testCount(trigger.getTestCount())
+                .retryCount(nextRetryCount)
+                .browser(trigger.getBrowser())
+                .device(trigger.getDevice())
+                .suiteStartedAt(trigger.getSuiteStartedAt())
+                .predictedMakespanMillis(trigger.getPredictedMakespanMillis())
+                .failFastFailures(trigger.getFailFastFailures())
+                .failFastWithin(trigger.getFailFastWithin())
+                .notBefore(retryPolicy.getNotBefore(nextRetryCount, System.currentTimeMillis()))
+                .retryCostMillis(TestResultRecord.getRetryCostMillis(trigger, outcome))
+                .build();
+        //a retry scheduled twice, I.E. by a redelivered attempt, keeps its test id, so its result is stored and counted once
+        retry.setTestId(retry.getExecutionId());
+
+        if (retryPolicy.defersToWave(trigger.getRetryCount())) {
+            LOG.info("HOLDING RETRY FOR WAVE {}", retry);
+            getResultStore().putResult(RETRIES_PREFIX + retry.getRunId() + "/" + retry.getTestId(), GSON.toJson(retry));
+            getCompletionTracker().recordHeldRetry(retry.getRunId(), retry.getTestId());
+        } else {
+            LOG.info("RETRYING WITH {}", retry);
+            getTestDispatcher().dispatch(Collections.singletonList(retry));
         }
+    }
 
-        s3OperationsClient.uploadTextFileToS3(CONFIG.getRemoteResultsBucket(), keyName, result.toString());
+    /**
+     * Dispatch the held retries of a suite once every test has either completed or is waiting for its retry, I.E. the
+     * first pass is over. Every later first-pass completion, and invocations finishing at the same moment, see the end
+     * of the first pass as well, so only the invocation that creates the suite's retries/[runId]~released marker
+     * dispatches the wave, once, whether or not executions are claimed.
+     */
+    private void releaseRetryWave(String runId, int testTotalCount) {
+        CompletionCount count = getCompletionTracker().getCompletionCount(runId);
+        if (count.getHeld() == 0 || count.getCompleted() + count.getHeld() < testTotalCount) {
+            return;
+        }
 
-        //suite ending trigger - all test results uploaded to s3
-        List<S3ObjectSummary> objectSummaries = s3OperationsClient.getObjectSummariesInBucketWithSubkey(CONFIG.getRemoteResultsBucket(), testSuiteRunId);
-        if (objectSummaries.size() == Integer.parseInt(testTotalCount)) {
-            long testRetryCount = objectSummaries.stream().filter(x -> !x.getKey().contains("RetryCount:0")).count();
-            long failureCount = objectSummaries.stream().filter(x -> x.getKey().contains("~false")).count();
-            String failureReporting = getFailureReporting(objectSummaries);
-            sendSlackMessage(testSuiteRunId + " - Example Archetype Lambda has finished running all tests! \n" +
-                    "Tests Run: " + testTotalCount + ", Tests Failed: " + failureCount + ", Tests Retried: " + testRetryCount + "\n" +
-                    "[Suite Run ID]/[Test Run Id]~[Method]~[Retries]~[Was Successful]: \n" + failureReporting);
+        List<String> heldRetries = getResultStore().getResultKeys(RETRIES_PREFIX + runId + "/");
+        if (!getResultStore().putResultIfAbsent(RETRIES_PREFIX + runId + WAVE_RELEASED_SUFFIX, String.join("\n", heldRetries))) {
+            LOG.info("RETRY WAVE OF {} IS ALREADY RELEASED", runId);
+            return;
+        }
+
+        List<TestTrigger> wave = new ArrayList<>(heldRetries.size());
+        for (String key : heldRetries) {
+            wave.add(GSON.fromJson(getResultStore().getResult(key), TestTrigger.class));
+        }
+        LOG.info("RELEASING RETRY WAVE OF {} TESTS FOR {}", wave.size(), runId);
+        getTestDispatcher().dispatch(wave);
+    }
+
+    /**
+     * @return predicted versus actual time from dispatch until the last test completed, empty for suites dispatched
+     * without a schedule, I.E. single test runs
+     */
+    private String getMakespanReport(TestTrigger trigger) {
+        if (trigger.getSuiteStartedAt() == null || trigger.getPredictedMakespanMillis() == null) {
+            return "";
         }
-        FileUtils.deleteQuietly(new File("/tmp/")); //force tmp directory clear
-        return result.wasSuccessful();
+        long actualMillis = System.currentTimeMillis() - trigger.getSuiteStartedAt();
+        return "Makespan: predicted " + TimeUnit.MILLISECONDS.toSeconds(trigger.getPredictedMakespanMillis()) +
+                "s, actual " + TimeUnit.MILLISECONDS.toSeconds(actualMillis) + "s\n";
+    }
+
+    /**
+     * @return the flakiest tests of the test history, at most history.flaky.report.size of them
+     */
+    private String getFlakyReport() {
+        Map<String, TestStats> flaky = getTestHistory().getFlaky(CONFIG.getHistoryFlakyRatePercent() / 100.0);
+        StringBuilder report = new StringBuilder("Flaky Tests (over " + CONFIG.getHistoryFlakyRatePercent() + "% of recent runs): \n");
+        flaky.entrySet().stream()
+                .limit(CONFIG.getHistoryFlakyReportSize())
+                .forEach(x -> report.append(x.getKey()).append(" - ").append(x.getValue()).append('\n'));
+        return flaky.isEmpty() ? report.append("No flaky tests to report!\n").toString() : report.toString();
+    }
+
+    /**
+     * Progress is only reported every notification.progress.percent of the suite, so large suites don't flood the
+     * channel. Completion counts can repeat or skip under concurrency, so a milestone may occasionally be missed.
+     */
+    private boolean isProgressMilestone(int completedCount, int testTotalCount) {
+        int percent = CONFIG.getNotificationProgressPercent();
+        if (percent <= 0 || completedCount >= testTotalCount) {
+            return false;
+        }
+        int step = Math.max(1, testTotalCount * percent / 100);
+        return completedCount % step == 0;
+    }
+
+    /**
+     * Wait for queued notifications to be sent, since the container is frozen as soon as the handler returns.
+     */
+    public void flushNotifications() {
+        notifier.flush(TimeUnit.SECONDS.toMillis(CONFIG.getNotificationFlushTimeoutSeconds()));
+    }
+
+    private void storeMetrics(InvocationMetrics metrics) {
+        try {
+            getResultStore().putResult(METRICS_PREFIX + metrics.getRunId() + "/" + metrics.getTestId(), metrics.toJson(System.currentTimeMillis()));
+        } catch (RuntimeException e) {
+            LOG.warn("Could not store metrics of {}", metrics.getTestId(), e); //metrics must never fail a test
+        }
+    }
+
+    /**
+     * Phase timings of the invocations of the suite that stored their metrics record, read with the manifest's
+     * read-ahead. Timings are only worth reading while time is left to send the report, so records not read by the
+     * deadline are left out and counted.
+     *
+     * @param deadline = epoch millis after which no more records are read
+     */
+    private String getSuiteMetricsReport(String runId, long deadline) {
+        SuiteMetrics suiteMetrics = new SuiteMetrics();
+        List<String> keys = getResultStore().getResultKeys(METRICS_PREFIX + runId + "/");
+        int read = new ResultReader(getResultStore(), CONFIG.getManifestReadAhead()).read(keys, deadline, suiteMetrics::add);
+        if (read < keys.size()) {
+            LOG.warn("READ {} OF {} METRICS RECORDS OF {} BEFORE THE DEADLINE", read, keys.size(), runId);
+            return suiteMetrics.getReport() + "Timings of " + (keys.size() - read) + " invocations were not read in time\n";
+        }
+        return suiteMetrics.getReport();
+    }
+
+    /**
+     * @param deadline = epoch millis by which tests had to stop
+     * @return epoch millis by which the suite's timings must be read, halfway through the safety margin
+     */
+    private static long getMetricsDeadline(long deadline) {
+        if (deadline == Long.MAX_VALUE) {
+            return deadline;
+        }
+        return deadline + TimeUnit.SECONDS.toMillis(CONFIG.getTimeoutSafetyMarginSeconds()) / 2;
     }
 
     @Override
-    public Boolean handleRequest(Map<String, Object> event, Context context) {
+    public Object handleRequest(Map<String, Object> event, Context context) {
+        try {
+            return route(event, context);
+        } finally {
+            flushNotifications();
+        }
+    }
+
+    private Object route(Map<String, Object> event, Context context) {
         if (event.containsKey("run") && event.get("run").equals("all")) { //run all tests
             return handleEntry(event);
         } else if (event.containsKey("run") && event.get("run").equals("method")) { //run single test
             return handleMethodEntry(event);
         }else if (event.containsKey("run") && event.get("run").equals("filter")){ //run tests with method filter
             return handleFilterEntry(event);
+        } else if (event.containsKey("run") && event.get("run").equals("impacted")) { //run tests impacted by a change
+            return handleImpactedEntry(event);
+        } else if (event.containsKey("run") && event.get("run").equals("cancel")) { //cancel a running suite
+            return handleCancelEntry(event);
+        } else if (event.containsKey("run") && event.get("run").equals(LambdaTestDispatcher.RUN_MODE)) { //direct test invocation
+            return handleDirectTestRun(event, context);
         } else if (event.containsKey("Records")) { //sqs event
-            return handleTestRun(event);
+            return handleTestRun(event, context);
         } else {
             throw new IllegalArgumentException("Lambda attempted to be invoked with non-supported JSON");
         }
@@ -1,5 +1,11 @@
 package com.bizrateinsights;
 
+import com.bizrateinsights.index.TestIndex;
+import com.bizrateinsights.index.TestIndexEntry;
+import com.bizrateinsights.model.TestOutcome;
+import com.bizrateinsights.selenium.Browsers;
+import com.bizrateinsights.selenium.Devices;
+import com.bizrateinsights.selenium.MatrixCell;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 import lombok.extern.log4j.Log4j2;
@@ -13,19 +19,32 @@ import org.reflections.scanners.SubTypesScanner;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Log4j2
 @UtilityClass
 public class JunitUtils {
 
+    /**
+     * Build-time test index, loaded once per container. Null when the jar was packaged without one, in which case
+     * discovery falls back to classpath scanning and reflection.
+     */
+    private final TestIndex TEST_INDEX = TestIndex.load();
+
     /**
      * Gets all test classes with "_Test" in the name, similar to how pytest works in a python environment.
      *
      * @param pkg = base package that contains all test classes
      */
     public List<String> getJunitTestClasses(String pkg){
+        if (TEST_INDEX != null) {
+            return TEST_INDEX.getClasses(pkg);
+        }
+
         Reflections reflections = new Reflections(pkg,
                 new SubTypesScanner(false));
         Set<Class<? extends Object>> allClasses =
@@ -51,6 +70,10 @@ public class JunitUtils {
      */
     @SneakyThrows
     public List<String> getTestsInJunitClass(String fullClassName){
+        if (TEST_INDEX != null && TEST_INDEX.containsClass(fullClassName)) {
+            return getIndexedTests(fullClassName, "");
+        }
+
         Class<?> clazz = Class.forName(fullClassName);
         Method[] allMethods = clazz.getDeclaredMethods();
 
@@ -73,6 +96,10 @@ public class JunitUtils {
      */
     @SneakyThrows
     public List<String> getTestsInJunitClass(String fullClassName, String filter){
+        if (TEST_INDEX != null && TEST_INDEX.containsClass(fullClassName)) {
+            return getIndexedTests(fullClassName, filter);
+        }
+
         Class<?> clazz = Class.forName(fullClassName);
         Method[] allMethods = clazz.getDeclaredMethods();
 
@@ -87,6 +114,122 @@ public class JunitUtils {
         return testMethods;
     }
 
+    /**
+     * Discover every runnable test in a package in a single pass.
+     *
+     * @param pkg = base package that contains all test classes
+     * @param filter = filter on test method names, empty to include every test
+     * @return test methods keyed by full class name, without classes that have no matching tests
+     */
+    public Map<String, List<String>> getJunitTests(String pkg, String filter) {
+        Map<String, List<String>> tests = new LinkedHashMap<>();
+        for (String clazz : getJunitTestClasses(pkg)) {
+            List<String> methods = getTestsInJunitClass(clazz, filter);
+            if (!methods.isEmpty()) {
+                tests.put(clazz, methods);
+            }
+        }
+        return tests;
+    }
+
+    private List<String> getIndexedTests(String fullClassName, String filter) {
+        List<String> testMethods = new ArrayList<>();
+        for (TestIndexEntry entry : TEST_INDEX.getEntries(fullClassName)) {
+            if (!entry.isIgnored() && entry.getMethodName().contains(filter)) {
+                testMethods.add(entry.getMethodName());
+            }
+        }
+        return testMethods;
+    }
+
+    /**
+     * Load a test class to read its annotations, without initializing it, so setup mode never runs the static
+     * initializers of test classes and their browser dependencies.
+     */
+    private Class<?> getAnnotatedClass(String fullClassName) throws ClassNotFoundException {
+        return Class.forName(fullClassName, false, JunitUtils.class.getClassLoader());
+    }
+
+    /**
+     * Get the browser and device combinations a test runs in. They are read from the test index, and only reflected
+     * for classes the index does not know.
+     *
+     * @param fullClassName = full class name (I.E. com.automationlambda.xyz)
+     * @param defaultCells = combinations of browser tests without a {@link TestMatrix}, I.E. the entry json's "matrix"
+     * @return the cells of the method's or class's {@link TestMatrix}, else the default cells for a browser test, else
+     * an empty list, meaning the test runs once and picks its own browser
+     */
+    public List<MatrixCell> getMatrix(String fullClassName, String testMethod, List<MatrixCell> defaultCells) {
+        TestIndexEntry entry = getIndexEntry(fullClassName, testMethod);
+        List<MatrixCell> cells = entry == null ? getAnnotatedMatrix(fullClassName, testMethod) : entry.getMatrix();
+        if (cells == null) {
+            return defaultCells.isEmpty() || !usesBrowser(fullClassName, Collections.singletonList(testMethod))
+                    ? Collections.emptyList()
+                    : defaultCells;
+        }
+        return cells;
+    }
+
+    /**
+     * @return the cells of the method's or class's {@link TestMatrix}, null if neither has one
+     */
+    @SneakyThrows
+    private List<MatrixCell> getAnnotatedMatrix(String fullClassName, String testMethod) {
+        Class<?> clazz = getAnnotatedClass(fullClassName);
+        TestMatrix matrix = clazz.getMethod(testMethod).getAnnotation(TestMatrix.class);
+        if (matrix == null) {
+            matrix = clazz.getAnnotation(TestMatrix.class);
+        }
+        if (matrix == null) {
+            return null;
+        }
+
+        List<MatrixCell> cells = new ArrayList<>();
+        for (Browsers browser : matrix.browsers()) {
+            for (Devices device : matrix.devices()) {
+                cells.add(new MatrixCell(browser, device));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * @return false only if the class, or every one of the methods, is marked {@link NonBrowserTest}
+     */
+    public boolean usesBrowser(String fullClassName, List<String> testMethods) {
+        for (String testMethod : testMethods) {
+            TestIndexEntry entry = getIndexEntry(fullClassName, testMethod);
+            if (entry == null) {
+                return usesBrowserAnnotated(fullClassName, testMethods);
+            }
+            if (!entry.isNonBrowser()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SneakyThrows
+    private boolean usesBrowserAnnotated(String fullClassName, List<String> testMethods) {
+        Class<?> clazz = getAnnotatedClass(fullClassName);
+        if (clazz.isAnnotationPresent(NonBrowserTest.class)) {
+            return false;
+        }
+        for (String testMethod : testMethods) {
+            if (!clazz.getMethod(testMethod).isAnnotationPresent(NonBrowserTest.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the test's index entry, null without an index or for a test it does not know
+     */
+    private TestIndexEntry getIndexEntry(String fullClassName, String testMethod) {
+        return TEST_INDEX == null ? null : TEST_INDEX.getEntry(fullClassName, testMethod);
+    }
+
     @SneakyThrows
     public Result runJunitTest(String clazz, String testMethod) {
         BlockJUnit4ClassRunner runner = new BlockJUnit4ClassRunner(Class.forName(clazz));
@@ -94,5 +237,31 @@ public class JunitUtils {
         return new JUnitCore().run(runner);
     }
 
+    /**
+     * Run a shard of methods from one class with a single runner, reporting each method individually.
+     *
+     * @param clazz = full class name
+     * @param testMethods = methods of the class to run
+     * @return one outcome per requested method
+     */
+    public List<TestOutcome> runJunitTests(String clazz, List<String> testMethods) {
+        OutcomeListener listener = new OutcomeListener();
+        runJunitTests(clazz, testMethods, listener);
+        return listener.getOutcomes(testMethods);
+    }
+
+    /**
+     * Run a shard of methods from one class with a single runner, reporting to the given listener.
+     */
+    @SneakyThrows
+    public void runJunitTests(String clazz, List<String> testMethods, OutcomeListener listener) {
+        BlockJUnit4ClassRunner runner = new BlockJUnit4ClassRunner(Class.forName(clazz));
+        runner.filter(new MethodFilter(testMethods));
+
+        JUnitCore junit = new JUnitCore();
+        junit.addListener(listener);
+        junit.run(runner);
+    }
+
 }
 
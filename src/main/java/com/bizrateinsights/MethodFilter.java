@@ -3,21 +3,33 @@ package com.bizrateinsights;
 import org.junit.runner.Description;
 import org.junit.runner.manipulation.Filter;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 public class MethodFilter extends Filter {
 
-    private final String methodName;
+    private final Set<String> methodNames;
 
     public MethodFilter(String methodName) {
-        this.methodName = methodName;
+        this(Collections.singleton(methodName));
+    }
+
+    /**
+     * Include several methods of the same class, so a whole shard runs through one runner.
+     */
+    public MethodFilter(Collection<String> methodNames) {
+        this.methodNames = new LinkedHashSet<>(methodNames);
     }
 
     @Override
     public boolean shouldRun(Description description) {
-        return description.getMethodName().equals(methodName);
+        return methodNames.contains(description.getMethodName());
     }
 
     @Override
     public String describe() {
-        return "Includes tests with method name: " + methodName;
+        return "Includes tests with method name: " + String.join(", ", methodNames);
     }
-}
\ No newline at end of file
+}
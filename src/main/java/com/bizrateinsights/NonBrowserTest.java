@@ -0,0 +1,15 @@
+package com.bizrateinsights;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test method, or every test of a class, as never opening a browser. Such tests run on the wider
+ * non-browser pool when an invocation processes a batch of triggers.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface NonBrowserTest {
+}
@@ -0,0 +1,87 @@
+package com.bizrateinsights;
+
+import com.bizrateinsights.model.TestOutcome;
+import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects one {@link TestOutcome} per method of a junit run. Safe to read from another thread while the run is in
+ * progress.
+ */
+public class OutcomeListener extends RunListener {
+
+    private final Map<String, List<Failure>> failures = new LinkedHashMap<>();
+    private final Map<String, Long> startTimes = new LinkedHashMap<>();
+    private final List<Failure> classFailures = new ArrayList<>();
+    private final List<TestOutcome> outcomes = new ArrayList<>();
+
+    @Override
+    public synchronized void testStarted(Description description) {
+        startTimes.put(description.getMethodName(), System.currentTimeMillis());
+        failures.put(description.getMethodName(), new ArrayList<>());
+    }
+
+    @Override
+    public synchronized void testFailure(Failure failure) {
+        if (failure.getDescription().getMethodName() == null) {
+            classFailures.add(failure); //@BeforeClass or @AfterClass failure
+            return;
+        }
+        failures.computeIfAbsent(failure.getDescription().getMethodName(), x -> new ArrayList<>()).add(failure);
+    }
+
+    @Override
+    public void testAssumptionFailure(Failure failure) {
+        //assumption failures are skips, not failures - same as junit's Result
+    }
+
+    @Override
+    public synchronized void testFinished(Description description) {
+        String method = description.getMethodName();
+        List<Failure> methodFailures = failures.getOrDefault(method, new ArrayList<>());
+        long runTime = System.currentTimeMillis() - startTimes.getOrDefault(method, System.currentTimeMillis());
+        outcomes.add(new TestOutcome(method, methodFailures.isEmpty(), false, methodFailures, runTime));
+    }
+
+    /**
+     * @param expectedMethods = methods the run was asked to execute
+     * @return one outcome per expected method. Methods that never started, for example because @BeforeClass failed,
+     * are reported as failures carrying the class level failures.
+     */
+    public synchronized List<TestOutcome> getOutcomes(List<String> expectedMethods) {
+        List<TestOutcome> allOutcomes = new ArrayList<>(outcomes);
+        for (String method : expectedMethods) {
+            if (!startTimes.containsKey(method)) {
+                allOutcomes.add(new TestOutcome(method, false, false, classFailures, 0));
+            } else if (!classFailures.isEmpty()) {
+                allOutcomes.replaceAll(x -> x.getMethod().equals(method) && x.isSuccessful()
+                        ? new TestOutcome(method, false, false, classFailures, x.getRunTimeMillis())
+                        : x);
+            }
+        }
+        return allOutcomes;
+    }
+
+    /**
+     * Outcomes for a run stopped at its deadline. Methods that finished keep their outcome, every other expected
+     * method is reported as timed out.
+     *
+     * @param expectedMethods = methods the run was asked to execute
+     */
+    public synchronized List<TestOutcome> getTimedOutOutcomes(List<String> expectedMethods) {
+        List<TestOutcome> allOutcomes = new ArrayList<>(outcomes);
+        for (String method : expectedMethods) {
+            if (allOutcomes.stream().noneMatch(x -> x.getMethod().equals(method))) {
+                Long started = startTimes.get(method);
+                allOutcomes.add(TestOutcome.timedOut(method, started == null ? 0 : System.currentTimeMillis() - started));
+            }
+        }
+        return allOutcomes;
+    }
+}
@@ -0,0 +1,22 @@
+package com.bizrateinsights;
+
+import com.bizrateinsights.selenium.Browsers;
+import com.bizrateinsights.selenium.Devices;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a test method, or every test of a class, once per browser and device combination, each in its own trigger.
+ * The test gets the browser of its combination from {@code DataConfig.getMatrixWebdriver()}. A method annotation wins
+ * over the class annotation, and both win over the "matrix" of the entry json.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface TestMatrix {
+    Browsers[] browsers() default {Browsers.CHROMIUM};
+
+    Devices[] devices() default {Devices.DESKTOP};
+}
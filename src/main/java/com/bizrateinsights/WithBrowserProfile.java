@@ -0,0 +1,19 @@
+package com.bizrateinsights;
+
+import com.bizrateinsights.selenium.BrowserProfile;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs every browser of a test class with the given performance profile instead of the browser.profile property.
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface WithBrowserProfile {
+    BrowserProfile value();
+}
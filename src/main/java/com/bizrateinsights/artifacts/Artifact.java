@@ -0,0 +1,20 @@
+package com.bizrateinsights.artifacts;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * A file a failing test leaves behind, I.E. a screenshot or browser log, held in memory until it is uploaded.
+ */
+@Value
+@AllArgsConstructor
+public class Artifact {
+
+    /**
+     * Appended to the test's result key, I.E. ".png".
+     */
+    String suffix;
+    String contentType;
+    byte[] bytes;
+
+}
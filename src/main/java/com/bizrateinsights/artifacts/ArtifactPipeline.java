@@ -0,0 +1,148 @@
+package com.bizrateinsights.artifacts;
+
+import com.bizrateinsights.metrics.InvocationMetrics;
+import com.bizrateinsights.metrics.Phase;
+import com.bizrateinsights.results.ResultStore;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Uploads the artifacts and results of one test trigger concurrently, so the uploads overlap the rest of the
+ * trigger - a failing test's screenshot uploads while its browser is released and the next test runs. The handler
+ * blocks only once, on {@link #join}, before it records the trigger's tests as completed.
+ * <p>
+ * The pipeline is bound to the thread running the trigger and inherited by the test thread, so a test's teardown can
+ * hand over what it captured with {@link #submit}.
+ */
+@Log4j2
+public class ArtifactPipeline {
+
+    private static final Logger LOG = LogManager.getLogger(ArtifactPipeline.class);
+    private static final InheritableThreadLocal<ArtifactPipeline> CURRENT = new InheritableThreadLocal<>();
+
+    private final ResultStore resultStore;
+    private final ExecutorService executor;
+    private final Function<String, String> failedKeyOf;
+    private final InvocationMetrics metrics;
+    private final List<Future<?>> artifactUploads = Collections.synchronizedList(new ArrayList<>());
+    private final List<Future<?>> resultUploads = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * @param executor = shared upload threads, started outside any trigger so they don't inherit one
+     * @param failedKeyOf = result key of a failed method, I.E. "[runId]/[testId]~[method]~RetryCount:0~false"
+     * @param metrics = record the uploads are timed against
+     */
+    public ArtifactPipeline(ResultStore resultStore, ExecutorService executor, Function<String, String> failedKeyOf,
+                            InvocationMetrics metrics) {
+        this.resultStore = resultStore;
+        this.executor = executor;
+        this.failedKeyOf = failedKeyOf;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return daemon upload threads, started right away so they don't inherit the trigger that first uses them
+     */
+    public static ExecutorService newUploadExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "artifact-upload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.prestartAllCoreThreads();
+        return executor;
+    }
+
+    /**
+     * Make this the pipeline of the current thread and the threads it starts.
+     */
+    public void bind() {
+        CURRENT.set(this);
+    }
+
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Hand over an artifact of a failed test for upload. Outside a trigger, I.E. when running tests from the IDE, the
+     * artifact is dropped.
+     *
+     * @return false if there is no pipeline to upload the artifact
+     */
+    public static boolean submit(String method, Artifact artifact) {
+        ArtifactPipeline pipeline = CURRENT.get();
+        if (pipeline == null) {
+            return false;
+        }
+        pipeline.putArtifact(pipeline.failedKeyOf.apply(method) + artifact.getSuffix(), artifact);
+        return true;
+    }
+
+    public void putArtifact(String key, Artifact artifact) {
+        InvocationMetrics.recordBytes(Phase.ARTIFACTS, artifact.getBytes().length);
+        artifactUploads.add(executor.submit(() -> upload(() -> resultStore.putArtifact(key, artifact))));
+    }
+
+    public void putResult(String key, String content) {
+        resultUploads.add(executor.submit(() -> upload(() -> resultStore.putResult(key, content))));
+    }
+
+    private void upload(Runnable upload) {
+        InvocationMetrics.bind(metrics); //upload threads are shared between triggers
+        try {
+            upload.run();
+        } finally {
+            InvocationMetrics.bind(null);
+        }
+    }
+
+    /**
+     * Wait for every upload. A failed artifact upload is only logged, a failed result upload fails the trigger since
+     * its test could not be recorded.
+     */
+    public void join() {
+        long start = System.nanoTime();
+        try {
+            for (Future<?> upload : snapshot(artifactUploads)) {
+                try {
+                    upload.get();
+                } catch (ExecutionException e) {
+                    LOG.error("Could not upload artifact", e.getCause());
+                }
+            }
+            for (Future<?> upload : snapshot(resultUploads)) {
+                try {
+                    upload.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Could not upload result", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while uploading", e);
+        } finally {
+            InvocationMetrics.record(Phase.ARTIFACTS, start);
+        }
+    }
+
+    private static List<Future<?>> snapshot(List<Future<?>> uploads) {
+        synchronized (uploads) {
+            List<Future<?>> copy = new ArrayList<>(uploads);
+            uploads.clear();
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.bizrateinsights.artifacts;
+
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Shrinks screenshots before upload. A desktop screenshot of the 5000x2000 window is several megabytes of png, while
+ * a downscaled jpg is usually enough to see what went wrong.
+ */
+@UtilityClass
+public class ScreenshotEncoder {
+
+    /**
+     * @param png = screenshot as returned by the webdriver
+     * @param scale = factor applied to both dimensions, 1 to keep the size
+     * @param format = "png" or "jpg"
+     * @return the screenshot as an artifact, untouched if it is already in the requested size and format
+     */
+    @SneakyThrows
+    public Artifact encode(byte[] png, double scale, String format) {
+        boolean jpg = "jpg".equalsIgnoreCase(format);
+        if (scale >= 1 && !jpg) {
+            return new Artifact(".png", "image/png", png);
+        }
+
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(png));
+        int width = Math.max(1, (int) (source.getWidth() * Math.min(1, scale)));
+        int height = Math.max(1, (int) (source.getHeight() * Math.min(1, scale)));
+        //jpg has no alpha channel
+        BufferedImage target = new BufferedImage(width, height, jpg ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(png.length / 4);
+        ImageIO.write(target, jpg ? "jpg" : "png", out);
+        return jpg ? new Artifact(".jpg", "image/jpeg", out.toByteArray()) : new Artifact(".png", "image/png", out.toByteArray());
+    }
+}
@@ -0,0 +1,53 @@
+package com.bizrateinsights.clients;
+
+import com.amazonaws.regions.Regions;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.lambda.AWSLambdaAsync;
+import com.amazonaws.services.lambda.AWSLambdaAsyncClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.AmazonSQSClientBuilder;
+import lombok.experimental.UtilityClass;
+
+/**
+ * AWS SDK clients shared by everything running in a container. Each client is built on first use, so an invocation
+ * only pays for the clients its mode needs, and warm invocations reuse their connection pools.
+ */
+@UtilityClass
+public class AwsClients {
+
+    private AmazonS3 s3;
+    private AmazonSQS sqs;
+    private AWSLambdaAsync lambdaAsync;
+    private AmazonDynamoDB dynamoDb;
+
+    public synchronized AmazonS3 getS3() {
+        if (s3 == null) {
+            s3 = AmazonS3ClientBuilder.standard().withRegion(Regions.DEFAULT_REGION).build();
+        }
+        return s3;
+    }
+
+    public synchronized AmazonSQS getSqs() {
+        if (sqs == null) {
+            sqs = AmazonSQSClientBuilder.standard().withRegion(Regions.DEFAULT_REGION).build();
+        }
+        return sqs;
+    }
+
+    public synchronized AWSLambdaAsync getLambdaAsync() {
+        if (lambdaAsync == null) {
+            lambdaAsync = AWSLambdaAsyncClientBuilder.standard().withRegion(Regions.DEFAULT_REGION).build();
+        }
+        return lambdaAsync;
+    }
+
+    public synchronized AmazonDynamoDB getDynamoDb() {
+        if (dynamoDb == null) {
+            dynamoDb = AmazonDynamoDBClientBuilder.standard().withRegion(Regions.DEFAULT_REGION).build();
+        }
+        return dynamoDb;
+    }
+}
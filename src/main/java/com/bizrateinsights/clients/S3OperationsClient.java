@@ -1,46 +1,211 @@
 package com.bizrateinsights.clients;
 
-import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.s3.model.*;
 import com.bizrateinsights.ExampleRequestHandler;
+import com.bizrateinsights.metrics.InvocationMetrics;
+import com.bizrateinsights.metrics.Phase;
+import com.bizrateinsights.results.VersionedResult;
+import com.amazonaws.util.IOUtils;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Log4j2
 public class S3OperationsClient {
 
-    private Regions region = Regions.DEFAULT_REGION;
-    private final AmazonS3 s3 = AmazonS3ClientBuilder.standard().withRegion(region).build();
+    private final AmazonS3 s3;
     private static final Logger LOG = LogManager.getLogger(ExampleRequestHandler.class);
+    private static final long MULTIPART_THRESHOLD_BYTES = 8L * 1024 * 1024;
+    private static final long MULTIPART_PART_BYTES = 5L * 1024 * 1024;
+    private TransferManager transferManager;
+
+    /**
+     * Use the container's shared S3 client
+     */
+    public S3OperationsClient() {
+        this(AwsClients.getS3());
+    }
+
+    public S3OperationsClient(AmazonS3 s3) {
+        this.s3 = s3;
+    }
 
     public void uploadTextFileToS3(String bucketName, String keyName, String innerText) {
         LOG.info("PUTTING FILE WITH KEY: {}", keyName);
-        s3.putObject(bucketName, keyName, innerText);
+        //encoded once, so the bytes recorded are the bytes sent
+        byte[] bytes = innerText.getBytes(StandardCharsets.UTF_8);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(bytes.length);
+        metadata.setContentType("text/plain");
+        long start = System.nanoTime();
+        s3.putObject(new PutObjectRequest(bucketName, keyName, new ByteArrayInputStream(bytes), metadata));
+        InvocationMetrics.record(Phase.UPLOAD, start);
+        InvocationMetrics.recordBytes(Phase.UPLOAD, bytes.length);
+    }
+
+    /**
+     * Upload a text file unless an object already exists under its key, with an If-None-Match conditional put, so
+     * of several uploads racing for the same key exactly one succeeds.
+     *
+     * @return false if an object already existed under the key
+     */
+    public boolean uploadTextFileToS3IfAbsent(String bucketName, String keyName, String innerText) {
+        LOG.info("PUTTING FILE IF ABSENT WITH KEY: {}", keyName);
+        byte[] bytes = innerText.getBytes(StandardCharsets.UTF_8);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(bytes.length);
+        metadata.setContentType("text/plain");
+        PutObjectRequest request = new PutObjectRequest(bucketName, keyName, new ByteArrayInputStream(bytes), metadata);
+        request.putCustomRequestHeader("If-None-Match", "*");
+
+        long start = System.nanoTime();
+        try {
+            s3.putObject(request);
+            return true;
+        } catch (AmazonS3Exception e) {
+            if (isConditionFailed(e)) {
+                return false;
+            }
+            throw e;
+        } finally {
+            InvocationMetrics.record(Phase.UPLOAD, start);
+            InvocationMetrics.recordBytes(Phase.UPLOAD, bytes.length);
+        }
+    }
+
+    /**
+     * Replace a text file only if it still has the given ETag, with an If-Match conditional put, so of several updates
+     * of the same object exactly one succeeds.
+     *
+     * @param eTag = ETag of the object the new text was derived from
+     * @return false if the object was replaced or deleted since
+     */
+    public boolean replaceTextFileInS3(String bucketName, String keyName, String innerText, String eTag) {
+        LOG.info("REPLACING FILE WITH KEY: {}", keyName);
+        byte[] bytes = innerText.getBytes(StandardCharsets.UTF_8);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(bytes.length);
+        metadata.setContentType("text/plain");
+        PutObjectRequest request = new PutObjectRequest(bucketName, keyName, new ByteArrayInputStream(bytes), metadata);
+        request.putCustomRequestHeader("If-Match", eTag);
+
+        long start = System.nanoTime();
+        try {
+            s3.putObject(request);
+            return true;
+        } catch (AmazonS3Exception e) {
+            if (isConditionFailed(e) || e.getStatusCode() == 404) {
+                return false;
+            }
+            throw e;
+        } finally {
+            InvocationMetrics.record(Phase.UPLOAD, start);
+            InvocationMetrics.recordBytes(Phase.UPLOAD, bytes.length);
+        }
+    }
+
+    /**
+     * @return true for a conditional write that lost, I.E. 412 for an existing key or 409 for a concurrent write
+     */
+    private static boolean isConditionFailed(AmazonS3Exception e) {
+        return e.getStatusCode() == 412 || e.getStatusCode() == 409;
     }
 
     public void uploadFileToS3(String bucketName, String keyName, File file) {
+        long start = System.nanoTime();
         s3.putObject(bucketName, keyName, file);
+        InvocationMetrics.record(Phase.UPLOAD, start);
+        InvocationMetrics.recordBytes(Phase.UPLOAD, file.length());
+    }
+
+    /**
+     * Upload an in-memory file, in parallel parts when it is large.
+     */
+    @SneakyThrows
+    public void uploadBytesToS3(String bucketName, String keyName, byte[] bytes, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(bytes.length);
+        metadata.setContentType(contentType);
+
+        long start = System.nanoTime();
+        if (bytes.length >= MULTIPART_THRESHOLD_BYTES) {
+            getTransferManager().upload(bucketName, keyName, new ByteArrayInputStream(bytes), metadata).waitForCompletion();
+        } else {
+            s3.putObject(bucketName, keyName, new ByteArrayInputStream(bytes), metadata);
+        }
+        InvocationMetrics.record(Phase.UPLOAD, start);
+        InvocationMetrics.recordBytes(Phase.UPLOAD, bytes.length);
+    }
+
+    private synchronized TransferManager getTransferManager() {
+        if (transferManager == null) {
+            transferManager = TransferManagerBuilder.standard()
+                    .withS3Client(s3)
+                    .withMultipartUploadThreshold(MULTIPART_THRESHOLD_BYTES)
+                    .withMinimumUploadPartSize(MULTIPART_PART_BYTES)
+                    .build();
+        }
+        return transferManager;
+    }
+
+    public String getObjectAsString(String bucketName, String keyName) {
+        return s3.getObjectAsString(bucketName, keyName);
+    }
+
+    /**
+     * @return the object's text with its ETag as version, null if there is no object under the key
+     */
+    @SneakyThrows
+    public VersionedResult getVersionedObjectAsString(String bucketName, String keyName) {
+        try (S3Object object = s3.getObject(bucketName, keyName)) {
+            String content = IOUtils.toString(object.getObjectContent());
+            return new VersionedResult(content, object.getObjectMetadata().getETag());
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
     }
 
     public List<S3ObjectSummary> getObjectSummariesInBucketWithSubkey(String bucketName, String subKey) {
-        ListObjectsV2Request req = new ListObjectsV2Request().withBucketName(bucketName);
+        return listObjectSummaries(new ListObjectsV2Request().withBucketName(bucketName))
+                .stream().filter(x -> x.getKey().contains(subKey))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get every object summary under a key prefix, following continuation tokens past the 1000 key page limit.
+     *
+     * @param bucketName = bucket to list
+     * @param prefix = key prefix, I.E. "[runId]/"
+     */
+    public List<S3ObjectSummary> getObjectSummariesWithPrefix(String bucketName, String prefix) {
+        return listObjectSummaries(new ListObjectsV2Request().withBucketName(bucketName).withPrefix(prefix));
+    }
+
+    private List<S3ObjectSummary> listObjectSummaries(ListObjectsV2Request req) {
+        List<S3ObjectSummary> objectSummaries = new ArrayList<>();
         ListObjectsV2Result result;
+        long start = System.nanoTime();
 
         do { //get all objects if more than 1000 results
             result = s3.listObjectsV2(req);
-            String token = result.getNextContinuationToken();
-            req.setContinuationToken(token);
+            objectSummaries.addAll(result.getObjectSummaries());
+            req.setContinuationToken(result.getNextContinuationToken());
         } while (result.isTruncated());
 
-        return result.getObjectSummaries()
-                .stream().filter(x -> x.getKey().contains(subKey))
-                .collect(Collectors.toList());
+        InvocationMetrics.record(Phase.LISTING, start);
+        return objectSummaries;
     }
 }
@@ -1,28 +1,113 @@
 package com.bizrateinsights.clients;
 
-import com.amazonaws.regions.Regions;
 import com.amazonaws.services.sqs.AmazonSQS;
-import com.amazonaws.services.sqs.AmazonSQSClientBuilder;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
 import com.amazonaws.services.sqs.model.SendMessageRequest;
+import com.bizrateinsights.Digests;
 import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 @Log4j2
 public class SQSOperationsClient {
 
-    private final Regions region = Regions.DEFAULT_REGION;
-    private final AmazonSQS amazonSQS = AmazonSQSClientBuilder.standard().withRegion(region).build();
+    public static final int MAX_BATCH_SIZE = 10;
+    private static final Logger LOG = LogManager.getLogger(SQSOperationsClient.class);
 
+    private final AmazonSQS amazonSQS;
+    private final Map<String, String> queueUrls = new ConcurrentHashMap<>();
 
+    /**
+     * Use the container's shared SQS client
+     */
+    public SQSOperationsClient() {
+        this(AwsClients.getSqs());
+    }
+
+    public SQSOperationsClient(AmazonSQS amazonSQS) {
+        this.amazonSQS = amazonSQS;
+    }
+
+    /**
+     * Resolve a queue url once per queue name, instead of once per message.
+     */
+    public String getQueueUrl(String queueName) {
+        return queueUrls.computeIfAbsent(queueName, x -> amazonSQS.getQueueUrl(x).getQueueUrl());
+    }
+
+    /**
+     * Send a message in a message group of its own, deduplicated by its body.
+     */
     public void sendMessageToQueue(String queueName, String message) {
-        String queueUrl = amazonSQS.getQueueUrl(queueName).getQueueUrl();
+        String deduplicationId = getContentDeduplicationId(message);
         SendMessageRequest sendMessageRequest = new SendMessageRequest()
-                .withQueueUrl(queueUrl)
+                .withQueueUrl(getQueueUrl(queueName))
                 .withMessageBody(message)
-                .withMessageGroupId(String.valueOf(UUID.randomUUID()))
-                .withMessageDeduplicationId(String.valueOf(UUID.randomUUID()));
+                .withMessageGroupId(deduplicationId)
+                .withMessageDeduplicationId(deduplicationId);
         amazonSQS.sendMessage(sendMessageRequest);
     }
 
+    /**
+     * @return sha-256 of a message body, the deduplication id SQS would derive with content based deduplication
+     */
+    public static String getContentDeduplicationId(String message) {
+        return Digests.sha256Hex(message);
+    }
+
+    /**
+     * Hide a received message for a while, I.E. to hand it back to the queue to be delivered again later.
+     *
+     * @param visibilitySeconds = seconds until the message is delivered again, at most 43200
+     */
+    public void changeMessageVisibility(String queueName, String receiptHandle, int visibilitySeconds) {
+        amazonSQS.changeMessageVisibility(getQueueUrl(queueName), receiptHandle, visibilitySeconds);
+    }
+
+    /**
+     * Send up to 10 messages with a single SendMessageBatch call. Resending a rejected entry, or a whole batch after a
+     * timeout, reuses its deduplication id, so SQS enqueues it at most once.
+     *
+     * @param queueName = name of the queue
+     * @param messages = message bodies, at most {@link #MAX_BATCH_SIZE}
+     * @param messageGroupIds = FIFO message group of each message body. Messages of a group are delivered in order
+     * @param deduplicationIds = deduplication id of each message body
+     * @return the messages that SQS rejected, so the caller can retry only those entries
+     */
+    public List<String> sendMessageBatchToQueue(String queueName, List<String> messages, Function<String, String> messageGroupIds,
+                                                Function<String, String> deduplicationIds) {
+        if (messages.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("SQS batches are limited to " + MAX_BATCH_SIZE + " messages, got " + messages.size());
+        }
+
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            entries.add(new SendMessageBatchRequestEntry()
+                    .withId(String.valueOf(i))
+                    .withMessageBody(messages.get(i))
+                    .withMessageGroupId(messageGroupIds.apply(messages.get(i)))
+                    .withMessageDeduplicationId(deduplicationIds.apply(messages.get(i))));
+        }
+
+        SendMessageBatchResult result = amazonSQS.sendMessageBatch(new SendMessageBatchRequest()
+                .withQueueUrl(getQueueUrl(queueName))
+                .withEntries(entries));
+
+        List<String> failedMessages = new ArrayList<>(result.getFailed().size());
+        for (BatchResultErrorEntry failure : result.getFailed()) {
+            LOG.warn("SQS rejected batch entry {}: {} - {}", failure.getId(), failure.getCode(), failure.getMessage());
+            failedMessages.add(messages.get(Integer.parseInt(failure.getId())));
+        }
+        return failedMessages;
+    }
+
 }
@@ -0,0 +1,110 @@
+package com.bizrateinsights.dispatch;
+
+import com.bizrateinsights.clients.SQSOperationsClient;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Enqueues test triggers during setup mode. Triggers are packed into SendMessageBatch calls of 10 and the batches are
+ * sent concurrently on a bounded pool, which lives as long as the dispatcher. Triggers that fit in a single batch,
+ * I.E. a retry, are sent on the calling thread. Entries that SQS rejects are retried on their own with a short backoff.
+ */
+@Log4j2
+public class BatchTriggerDispatcher {
+
+    private static final Logger LOG = LogManager.getLogger(BatchTriggerDispatcher.class);
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+
+    private final SQSOperationsClient sqsOperationsClient;
+    private final String queueName;
+    private final int maxAttempts;
+    private final ExecutorService executor;
+
+    /**
+     * @param concurrency = batches sent at once, each on a daemon thread started with the dispatcher
+     */
+    public BatchTriggerDispatcher(SQSOperationsClient sqsOperationsClient, String queueName, int concurrency, int maxAttempts) {
+        this.sqsOperationsClient = sqsOperationsClient;
+        this.queueName = queueName;
+        this.maxAttempts = maxAttempts;
+        int threads = Math.max(1, concurrency);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "trigger-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.prestartAllCoreThreads();
+        this.executor = pool;
+    }
+
+    /**
+     * Send every trigger to the queue, blocking until all batches are accepted. Batches are handed to the senders in
+     * order, so triggers are enqueued in list order to within sqs.dispatch.concurrency batches.
+     *
+     * @param triggers = test trigger json bodies
+     * @param messageGroupIds = FIFO message group of each trigger body
+     * @param deduplicationIds = deduplication id of each trigger body, the same for every send of a trigger
+     * @return number of triggers enqueued
+     */
+    public int dispatch(List<String> triggers, Function<String, String> messageGroupIds, Function<String, String> deduplicationIds) {
+        List<Future<Integer>> batches = new ArrayList<>();
+        try {
+            if (triggers.size() <= SQSOperationsClient.MAX_BATCH_SIZE) {
+                return triggers.isEmpty() ? 0 : sendWithRetry(triggers, messageGroupIds, deduplicationIds);
+            }
+
+            for (int i = 0; i < triggers.size(); i += SQSOperationsClient.MAX_BATCH_SIZE) {
+                List<String> batch = triggers.subList(i, Math.min(i + SQSOperationsClient.MAX_BATCH_SIZE, triggers.size()));
+                batches.add(executor.submit(() -> sendWithRetry(batch, messageGroupIds, deduplicationIds)));
+            }
+
+            int sent = 0;
+            for (Future<Integer> batch : batches) {
+                sent += batch.get();
+            }
+            LOG.info("ENQUEUED {} TRIGGERS IN {} BATCHES", sent, batches.size());
+            return sent;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batches.forEach(x -> x.cancel(true));
+            throw new IllegalStateException("Interrupted while enqueuing test triggers", e);
+        } catch (ExecutionException e) {
+            batches.forEach(x -> x.cancel(true));
+            throw new IllegalStateException("Failed to enqueue test triggers", e.getCause());
+        }
+    }
+
+    private int sendWithRetry(List<String> batch, Function<String, String> messageGroupIds,
+                              Function<String, String> deduplicationIds) throws InterruptedException {
+        List<String> pending = batch;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                pending = sqsOperationsClient.sendMessageBatchToQueue(queueName, pending, messageGroupIds, deduplicationIds);
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                LOG.warn("SendMessageBatch attempt {} failed, retrying: {}", attempt, e.getMessage());
+            }
+
+            if (pending.isEmpty()) {
+                return batch.size();
+            }
+            if (attempt >= maxAttempts) {
+                throw new IllegalStateException(pending.size() + " test triggers were rejected after " + attempt + " attempts");
+            }
+            Thread.sleep(RETRY_BACKOFF_MILLIS << (attempt - 1));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.bizrateinsights.dispatch;
+
+/**
+ * Expected run time of a single test method, used to plan dispatch.
+ */
+public interface DurationEstimator {
+
+    /**
+     * @param className = full class name
+     * @param methodName = test method
+     * @return expected run time of the method in milliseconds
+     */
+    long estimateMillis(String className, String methodName);
+
+}
@@ -0,0 +1,113 @@
+package com.bizrateinsights.dispatch;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.lambda.AWSLambdaAsync;
+import com.amazonaws.services.lambda.model.InvocationType;
+import com.amazonaws.services.lambda.model.InvokeRequest;
+import com.amazonaws.services.lambda.model.InvokeResult;
+import com.bizrateinsights.model.TestTrigger;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Starts every test with an asynchronous ("Event") invocation of the lambda itself, skipping the FIFO queue and its
+ * polling latency. At most {@code window} invoke calls are in flight at once, and failed calls are retried up to
+ * {@code maxAttempts} times.
+ * <p>
+ * Each invocation receives {"run": "test", "trigger": {...}}.
+ */
+@Log4j2
+public class LambdaTestDispatcher implements TestDispatcher {
+
+    public static final String RUN_MODE = "test";
+    public static final String TRIGGER_KEY = "trigger";
+
+    private static final Logger LOG = LogManager.getLogger(LambdaTestDispatcher.class);
+    private static final Gson GSON = new Gson();
+
+    private final AWSLambdaAsync lambda;
+    private final String functionName;
+    private final String qualifier;
+    private final int window;
+    private final int maxAttempts;
+
+    public LambdaTestDispatcher(AWSLambdaAsync lambda, String functionName, String qualifier, int window, int maxAttempts) {
+        this.lambda = lambda;
+        this.functionName = functionName;
+        this.qualifier = qualifier;
+        this.window = window;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public int dispatch(List<TestTrigger> triggers) {
+        Semaphore inFlight = new Semaphore(Math.max(1, window));
+        CountDownLatch done = new CountDownLatch(triggers.size());
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        try {
+            for (TestTrigger trigger : triggers) {
+                inFlight.acquire();
+                invoke(buildPayload(trigger), 1, inFlight, done, failures);
+            }
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while invoking test triggers", e);
+        }
+
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException(failures.size() + " test invocations failed after " + maxAttempts + " attempts", failures.peek());
+        }
+        LOG.info("INVOKED {} TRIGGERS", triggers.size());
+        return triggers.size();
+    }
+
+    public static String buildPayload(TestTrigger trigger) {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("run", RUN_MODE);
+        payload.add(TRIGGER_KEY, GSON.toJsonTree(trigger));
+        return GSON.toJson(payload);
+    }
+
+    /**
+     * Send one invoke call. The caller holds a window permit, which is kept across retries and released once the
+     * trigger is accepted or has failed for good.
+     */
+    private void invoke(String payload, int attempt, Semaphore inFlight, CountDownLatch done, Queue<Throwable> failures) {
+        InvokeRequest request = new InvokeRequest()
+                .withFunctionName(functionName)
+                .withQualifier(qualifier)
+                .withInvocationType(InvocationType.Event)
+                .withPayload(payload);
+
+        lambda.invokeAsync(request, new AsyncHandler<InvokeRequest, InvokeResult>() {
+            @Override
+            public void onError(Exception exception) {
+                if (attempt < maxAttempts) {
+                    LOG.warn("Invoke attempt {} failed, retrying: {}", attempt, exception.getMessage());
+                    invoke(payload, attempt + 1, inFlight, done, failures);
+                    return;
+                }
+                failures.add(exception);
+                inFlight.release();
+                done.countDown();
+            }
+
+            @Override
+            public void onSuccess(InvokeRequest request, InvokeResult result) {
+                inFlight.release();
+                done.countDown();
+            }
+        });
+    }
+}
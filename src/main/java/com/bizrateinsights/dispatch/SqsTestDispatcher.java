@@ -0,0 +1,45 @@
+package com.bizrateinsights.dispatch;
+
+import com.bizrateinsights.clients.SQSOperationsClient;
+import com.bizrateinsights.model.TestTrigger;
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dispatches triggers through the FIFO queue that the lambda's event source mapping polls.
+ */
+public class SqsTestDispatcher implements TestDispatcher {
+
+    private static final Gson GSON = new Gson();
+
+    private final BatchTriggerDispatcher batchTriggerDispatcher;
+
+    public SqsTestDispatcher(SQSOperationsClient sqsOperationsClient, String queueName, int concurrency, int maxAttempts) {
+        this.batchTriggerDispatcher = new BatchTriggerDispatcher(sqsOperationsClient, queueName, concurrency, maxAttempts);
+    }
+
+    /**
+     * Triggers the scheduler assigned to a lane share the message group [Suite Run UUID]-lane-[n], so each lane is
+     * delivered in dispatch order. Every other trigger gets a message group of its own. Each trigger is deduplicated by
+     * its execution id, so sending the same attempt twice, I.E. a retry wave released by two invocations, enqueues it
+     * once.
+     */
+    @Override
+    public int dispatch(List<TestTrigger> triggers) {
+        List<String> messages = new ArrayList<>(triggers.size());
+        Map<String, TestTrigger> messageTriggers = new HashMap<>();
+        for (TestTrigger trigger : triggers) {
+            String message = GSON.toJson(trigger);
+            messages.add(message);
+            messageTriggers.put(message, trigger);
+        }
+        return batchTriggerDispatcher.dispatch(messages, x -> {
+            TestTrigger trigger = messageTriggers.get(x);
+            return trigger.getLane() == null ? trigger.getExecutionId() : trigger.getRunId() + "-lane-" + trigger.getLane();
+        }, x -> messageTriggers.get(x).getExecutionId());
+    }
+}
@@ -0,0 +1,28 @@
+package com.bizrateinsights.dispatch;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Estimates from a fixed map of known timings keyed by "[class]#[method]", falling back to a default duration for
+ * tests without a recorded timing.
+ */
+public class StaticDurationEstimator implements DurationEstimator {
+
+    private final Map<String, Long> knownMillis;
+    private final long defaultMillis;
+
+    public StaticDurationEstimator(long defaultMillis) {
+        this(Collections.emptyMap(), defaultMillis);
+    }
+
+    public StaticDurationEstimator(Map<String, Long> knownMillis, long defaultMillis) {
+        this.knownMillis = knownMillis;
+        this.defaultMillis = defaultMillis;
+    }
+
+    @Override
+    public long estimateMillis(String className, String methodName) {
+        return knownMillis.getOrDefault(className + "#" + methodName, defaultMillis);
+    }
+}
@@ -0,0 +1,20 @@
+package com.bizrateinsights.dispatch;
+
+import com.bizrateinsights.model.TestTrigger;
+
+import java.util.List;
+
+/**
+ * Starts test invocations for a set of triggers.
+ */
+public interface TestDispatcher {
+
+    /**
+     * Dispatch every trigger, blocking until all of them have been accepted.
+     *
+     * @param triggers = test triggers to start
+     * @return number of triggers dispatched
+     */
+    int dispatch(List<TestTrigger> triggers);
+
+}
@@ -0,0 +1,85 @@
+package com.bizrateinsights.dispatch;
+
+import com.bizrateinsights.model.TestTrigger;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Orders a suite's triggers longest expected run time first, so that with fewer concurrent invocations than triggers
+ * the long tests start early, and the tail of the suite is made of short ones. Triggers with the same expected run time
+ * are ordered by class and method, so dispatch order no longer depends on discovery order.
+ * <p>
+ * The predicted makespan assumes every trigger starts as soon as one of {@code concurrency} invocations is free, in
+ * dispatch order. With {@code fifoLanes}, each trigger is also assigned to the least loaded of {@code concurrency}
+ * lanes, which the SQS dispatcher maps to FIFO message groups, so every lane runs its tests longest first.
+ */
+public class TestScheduler {
+
+    private final int concurrency;
+    private final boolean fifoLanes;
+
+    /**
+     * @param concurrency = invocations expected to run tests side by side, I.E. the lambda's reserved concurrency
+     * @param fifoLanes = assign triggers to {@code concurrency} FIFO message groups
+     */
+    public TestScheduler(int concurrency, boolean fifoLanes) {
+        this.concurrency = Math.max(1, concurrency);
+        this.fifoLanes = fifoLanes;
+    }
+
+    /**
+     * @param triggers = triggers of one suite, with their expected run times
+     * @param startedAt = epoch millis the suite is dispatched at
+     * @return the triggers in dispatch order, carrying the suite start and predicted makespan
+     */
+    public Schedule schedule(List<TestTrigger> triggers, long startedAt) {
+        List<TestTrigger> ordered = new ArrayList<>(triggers);
+        ordered.sort(Comparator.comparingLong(TestScheduler::getExpectedMillis).reversed()
+                .thenComparing(TestTrigger::getTestClass)
+                .thenComparing(x -> String.join(",", x.getTestMethods())));
+
+        //longest processing time first list scheduling: every trigger goes to the invocation that frees up first
+        PriorityQueue<long[]> lanes = new PriorityQueue<>(Comparator.comparingLong((long[] x) -> x[0]).thenComparingLong(x -> x[1]));
+        for (int i = 0; i < Math.min(concurrency, Math.max(1, ordered.size())); i++) {
+            lanes.add(new long[]{0, i});
+        }
+        List<Integer> assignedLanes = new ArrayList<>(ordered.size());
+        long makespan = 0;
+        for (TestTrigger trigger : ordered) {
+            long[] lane = lanes.poll();
+            lane[0] += getExpectedMillis(trigger);
+            makespan = Math.max(makespan, lane[0]);
+            assignedLanes.add((int) lane[1]);
+            lanes.add(lane);
+        }
+
+        List<TestTrigger> scheduled = new ArrayList<>(ordered.size());
+        for (int i = 0; i < ordered.size(); i++) {
+            scheduled.add(ordered.get(i).toBuilder()
+                    .lane(fifoLanes ? assignedLanes.get(i) : null)
+                    .suiteStartedAt(startedAt)
+                    .predictedMakespanMillis(makespan)
+                    .build());
+        }
+        return new Schedule(scheduled, makespan);
+    }
+
+    private static long getExpectedMillis(TestTrigger trigger) {
+        return trigger.getExpectedMillis() == null ? 0 : trigger.getExpectedMillis();
+    }
+
+    /**
+     * Triggers of a suite in dispatch order.
+     */
+    @Value
+    @AllArgsConstructor
+    public static class Schedule {
+        List<TestTrigger> triggers;
+        long predictedMakespanMillis;
+    }
+}
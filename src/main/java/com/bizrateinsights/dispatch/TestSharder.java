@@ -0,0 +1,77 @@
+package com.bizrateinsights.dispatch;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs the test methods of each class into shards that one invocation runs with a single junit runner. Methods are
+ * bin-packed first-fit-decreasing against a target shard duration, so many short tests share an invocation while a
+ * test longer than the target still gets one to itself.
+ */
+public class TestSharder {
+
+    private final DurationEstimator durationEstimator;
+    private final long targetMillis;
+    private final int maxMethodsPerShard;
+
+    public TestSharder(DurationEstimator durationEstimator, long targetMillis, int maxMethodsPerShard) {
+        this.durationEstimator = durationEstimator;
+        this.targetMillis = targetMillis;
+        this.maxMethodsPerShard = maxMethodsPerShard;
+    }
+
+    /**
+     * @param tests = test methods keyed by class
+     * @return shards, each holding methods of a single class
+     */
+    public List<TestShard> shard(Map<String, List<String>> tests) {
+        List<TestShard> shards = new ArrayList<>();
+        for (Map.Entry<String, List<String>> classTests : tests.entrySet()) {
+            shards.addAll(shardClass(classTests.getKey(), classTests.getValue()));
+        }
+        return shards;
+    }
+
+    private List<TestShard> shardClass(String className, List<String> methods) {
+        List<String> longestFirst = new ArrayList<>(methods);
+        longestFirst.sort(Comparator.comparingLong((String x) -> durationEstimator.estimateMillis(className, x)).reversed());
+
+        List<List<String>> bins = new ArrayList<>();
+        List<Long> binMillis = new ArrayList<>();
+        for (String method : longestFirst) {
+            long millis = durationEstimator.estimateMillis(className, method);
+            int bin = 0;
+            while (bin < bins.size() && (binMillis.get(bin) + millis > targetMillis || bins.get(bin).size() >= maxMethodsPerShard)) {
+                bin++;
+            }
+            if (bin == bins.size()) {
+                bins.add(new ArrayList<>());
+                binMillis.add(0L);
+            }
+            bins.get(bin).add(method);
+            binMillis.set(bin, binMillis.get(bin) + millis);
+        }
+
+        List<TestShard> shards = new ArrayList<>(bins.size());
+        for (int i = 0; i < bins.size(); i++) {
+            shards.add(new TestShard(className, bins.get(i), binMillis.get(i)));
+        }
+        return shards;
+    }
+
+    /**
+     * Methods of one class dispatched in a single trigger.
+     */
+    @Value
+    @AllArgsConstructor
+    public static class TestShard {
+        String className;
+        List<String> methods;
+        long expectedMillis;
+    }
+}
@@ -0,0 +1,105 @@
+package com.bizrateinsights.execution;
+
+import com.bizrateinsights.model.TestTrigger;
+import com.bizrateinsights.results.ResultStore;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.UUID;
+
+/**
+ * Makes sure each attempt of a trigger runs once, however often it is delivered, I.E. when an SQS message becomes
+ * visible again while its test is still running, or a send is repeated. Claims are objects in the result store, keyed
+ * by the trigger's {@link TestTrigger#getExecutionId()}:
+ * <p>
+ * claims/[runId]/[executionId]~[n] - lease generation n, holding [leaseUntil]~[owner] until the invocation running the
+ * attempt ends
+ * <br>
+ * claims/[runId]/[executionId]~done - the attempt has stored its results
+ * <p>
+ * A duplicate of an attempt that is done or leased costs a listing and at most one read. A lease is taken by creating
+ * the next generation with {@link ResultStore#putResultIfAbsent}, so of the deliveries racing for the same generation
+ * exactly one creates it and runs the attempt, whatever their clocks say. A lease that expired without the attempt
+ * being done, I.E. its invocation crashed, no longer blocks the next delivery, which takes the generation after it.
+ * Clocks only decide when a lease has expired.
+ */
+@Log4j2
+public class ExecutionClaims {
+
+    private static final Logger LOG = LogManager.getLogger(ExecutionClaims.class);
+    public static final String CLAIMS_PREFIX = "claims/";
+    private static final String DONE = "done";
+
+    public enum Status {
+        /**
+         * This delivery holds the lease and runs the attempt.
+         */
+        ACQUIRED,
+        /**
+         * Another delivery holds a live lease on the attempt.
+         */
+        RUNNING,
+        /**
+         * The attempt already stored its results.
+         */
+        COMPLETED
+    }
+
+    private final ResultStore resultStore;
+
+    public ExecutionClaims(ResultStore resultStore) {
+        this.resultStore = resultStore;
+    }
+
+    /**
+     * @param leaseUntil = epoch millis the lease expires at, I.E. the end of the invocation running the attempt
+     */
+    public Status claim(TestTrigger trigger, long leaseUntil) {
+        String prefix = getClaimPrefix(trigger);
+        int generation = -1;
+        for (String key : resultStore.getResultKeys(prefix)) {
+            String claim = key.substring(prefix.length());
+            if (claim.equals(DONE)) {
+                return Status.COMPLETED;
+            }
+            if (isGeneration(claim)) {
+                generation = Math.max(generation, Integer.parseInt(claim));
+            }
+        }
+        if (generation >= 0 && getLeaseUntil(resultStore.getResult(prefix + generation)) > System.currentTimeMillis()) {
+            return Status.RUNNING;
+        }
+
+        //another delivery creating the same generation first holds the lease, or is done by the time it is listed again
+        boolean acquired = resultStore.putResultIfAbsent(prefix + (generation + 1), leaseUntil + "~" + UUID.randomUUID());
+        Status status = acquired ? Status.ACQUIRED : Status.RUNNING;
+        LOG.info("CLAIM {} OF {} FOR {}: {}", generation + 1, trigger.getExecutionId(), trigger.getTestId(), status);
+        return status;
+    }
+
+    /**
+     * Mark an attempt done, so later deliveries of it are skipped.
+     */
+    public void complete(TestTrigger trigger) {
+        resultStore.putResult(getClaimPrefix(trigger) + DONE, "");
+    }
+
+    private static boolean isGeneration(String claim) {
+        return !claim.isEmpty() && claim.length() < 10 && claim.chars().allMatch(Character::isDigit);
+    }
+
+    /**
+     * @param lease = [leaseUntil]~[owner]
+     */
+    private static long getLeaseUntil(String lease) {
+        return Long.parseLong(lease.substring(0, lease.indexOf('~')));
+    }
+
+    /**
+     * @return claims/[runId]/[executionId]~
+     */
+    private static String getClaimPrefix(TestTrigger trigger) {
+        return CLAIMS_PREFIX + trigger.getRunId() + "/" + trigger.getExecutionId() + "~";
+    }
+}
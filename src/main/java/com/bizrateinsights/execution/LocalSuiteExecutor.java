@@ -0,0 +1,125 @@
+package com.bizrateinsights.execution;
+
+import com.bizrateinsights.ExampleRequestHandler;
+import com.bizrateinsights.JunitUtils;
+import com.bizrateinsights.dispatch.TestDispatcher;
+import com.bizrateinsights.model.MetaConfig;
+import com.bizrateinsights.model.TestTrigger;
+import com.bizrateinsights.results.LocalResultStore;
+import com.bizrateinsights.tracking.InMemoryCompletionTracker;
+import lombok.extern.log4j.Log4j2;
+import org.aeonbits.owner.ConfigCache;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a whole suite in this JVM, without any cloud services. Tests are discovered and dispatched by the request
+ * handler's "filter" mode exactly as in the lambda, but every trigger, including each retry, is handed to a
+ * work-stealing pool instead of sqs. Results go to a local directory under the same keys as the results bucket, and
+ * completion is tracked in memory, so the suite summary is the same one the lambda sends to slack.
+ * <p>
+ * Browser tests hold one of a bounded number of browser permits while they run. With webdriver.pool.enabled the
+ * sessions are reused between tests, so at most that many browsers are ever open.
+ * <p>
+ * Run with: mvn compile exec:java -Dexec.mainClass=com.bizrateinsights.execution.LocalSuiteExecutor -Dexec.args="[filter]"
+ */
+@Log4j2
+public class LocalSuiteExecutor implements TestDispatcher {
+
+    private static final Logger LOG = LogManager.getLogger(LocalSuiteExecutor.class);
+    private static final MetaConfig CONFIG = ConfigCache.getOrCreate(MetaConfig.class);
+
+    private final ForkJoinPool pool;
+    private final Semaphore browserPermits;
+    private final ExampleRequestHandler handler;
+
+    private final AtomicInteger dispatchedCount = new AtomicInteger();
+    private final AtomicInteger erroredCount = new AtomicInteger();
+
+    /**
+     * @param testConcurrency = triggers run side by side
+     * @param browserSessions = browser tests run side by side
+     * @param resultsDir = directory results and screenshots are written to
+     */
+    public LocalSuiteExecutor(int testConcurrency, int browserSessions, String resultsDir) {
+        this.pool = new ForkJoinPool(Math.max(1, testConcurrency));
+        this.browserPermits = new Semaphore(Math.max(1, browserSessions));
+        this.handler = new ExampleRequestHandler(this, new InMemoryCompletionTracker(), new LocalResultStore(resultsDir),
+                x -> LOG.info("SUITE REPORT: \n{}", x));
+    }
+
+    @Override
+    public int dispatch(List<TestTrigger> triggers) {
+        for (TestTrigger trigger : triggers) {
+            dispatchedCount.incrementAndGet();
+            pool.execute(() -> runTrigger(trigger));
+        }
+        return triggers.size();
+    }
+
+    private void runTrigger(TestTrigger trigger) {
+        boolean usesBrowser = JunitUtils.usesBrowser(trigger.getTestClass(), trigger.getTestMethods());
+        try {
+            if (usesBrowser) {
+                browserPermits.acquire();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try {
+            handler.runTestTrigger(trigger, Long.MAX_VALUE);
+        } catch (RuntimeException e) {
+            LOG.error("Trigger {} failed", trigger, e);
+            erroredCount.incrementAndGet();
+        } finally {
+            if (usesBrowser) {
+                browserPermits.release();
+            }
+        }
+    }
+
+    /**
+     * Dispatch every test whose name contains the filter, and wait for all of them and their retries to finish.
+     *
+     * @param filter = method name filter, empty for the whole suite
+     */
+    public void run(String filter) {
+        long start = System.currentTimeMillis();
+        Map<String, Object> event = new HashMap<>();
+        event.put("run", "filter");
+        event.put("nameContains", filter);
+        handler.handleRequest(event, null);
+
+        pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.MILLISECONDS); //retries are dispatched from inside the pool
+        handler.flushNotifications();
+        long elapsedMillis = System.currentTimeMillis() - start;
+        LOG.info("LOCAL SUITE RAN {} TRIGGERS ({} ERRORED) IN {} ms, {} TRIGGERS/MINUTE", dispatchedCount.get(),
+                erroredCount.get(), elapsedMillis, dispatchedCount.get() * 60000L / Math.max(1, elapsedMillis));
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+        LocalSuiteExecutor executor = new LocalSuiteExecutor(CONFIG.getTestConcurrency(),
+                CONFIG.getLocalBrowserSessions(), CONFIG.getLocalResultsDir());
+        try {
+            executor.run(filter);
+        } finally {
+            executor.shutdown();
+        }
+        System.exit(0); //chromedriver services keep non-daemon threads alive
+    }
+}
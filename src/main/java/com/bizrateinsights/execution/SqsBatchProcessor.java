@@ -0,0 +1,116 @@
+package com.bizrateinsights.execution;
+
+import com.bizrateinsights.model.TestTrigger;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Runs every record of an SQS batch in one invocation. Browser tests share a small pool sized to the lambda's memory,
+ * other tests share a wider pool. Records whose processing throws are returned as partial batch failures, so only
+ * those messages are redelivered. A failing test is not a failed record - its result and retry are already handled. Records
+ * that must not run yet, I.E. backed off retries, are handed back to the queue the same way.
+ * <p>
+ * Every record shares the invocation's deadline, so records still waiting for a pool thread when it passes are not
+ * started, since they could only be recorded as timeouts. They are returned as partial batch failures without a result,
+ * and are redelivered as they were, without using up a retry.
+ * <p>
+ * Requires "ReportBatchItemFailures" on the event source mapping.
+ */
+@Log4j2
+public class SqsBatchProcessor {
+
+    private static final Logger LOG = LogManager.getLogger(SqsBatchProcessor.class);
+
+    private final int testConcurrency;
+    private final int browserConcurrency;
+
+    public SqsBatchProcessor(int testConcurrency, int browserConcurrency) {
+        this.testConcurrency = testConcurrency;
+        this.browserConcurrency = browserConcurrency;
+    }
+
+    /**
+     * @param records = "Records" of the sqs event
+     * @param parser = parses a record body into a trigger
+     * @param runner = runs a single trigger
+     * @param usesBrowser = true if a trigger's tests open a browser
+     * @param deferrer = hands a record that must not run yet back to the queue, returning true if it did
+     * @param deadline = epoch millis after which records are no longer started
+     * @return partial batch response, I.E. {"batchItemFailures": [{"itemIdentifier": "[messageId]"}]}
+     */
+    public Map<String, Object> process(List<Map<String, Object>> records, Function<String, TestTrigger> parser,
+                                       Function<TestTrigger, Boolean> runner, Predicate<TestTrigger> usesBrowser,
+                                       BiPredicate<Map<String, Object>, TestTrigger> deferrer, long deadline) {
+        ExecutorService browserPool = Executors.newFixedThreadPool(Math.max(1, browserConcurrency));
+        ExecutorService testPool = Executors.newFixedThreadPool(Math.max(1, testConcurrency));
+        Map<String, Future<Boolean>> runs = new LinkedHashMap<>();
+        List<Map<String, String>> failures = new ArrayList<>();
+        Set<String> notStarted = ConcurrentHashMap.newKeySet();
+
+        try {
+            for (Map<String, Object> record : records) {
+                String messageId = (String) record.get("messageId");
+                try {
+                    TestTrigger trigger = parser.apply((String) record.get("body"));
+                    if (deferrer.test(record, trigger)) {
+                        //reported as failed so the message is not deleted, it is redelivered once its visibility expires
+                        failures.add(Collections.singletonMap("itemIdentifier", messageId));
+                        continue;
+                    }
+                    ExecutorService pool = usesBrowser.test(trigger) ? browserPool : testPool;
+                    runs.put(messageId, pool.submit(() -> {
+                        if (System.currentTimeMillis() >= deadline) {
+                            notStarted.add(messageId);
+                            return false;
+                        }
+                        return runner.apply(trigger);
+                    }));
+                } catch (RuntimeException e) {
+                    LOG.error("Could not schedule record {}", messageId, e);
+                    failures.add(Collections.singletonMap("itemIdentifier", messageId));
+                }
+            }
+
+            for (Map.Entry<String, Future<Boolean>> run : runs.entrySet()) {
+                try {
+                    run.getValue().get();
+                    if (notStarted.contains(run.getKey())) {
+                        LOG.warn("NO TIME LEFT TO START RECORD {}, RETURNING IT TO THE QUEUE", run.getKey());
+                        failures.add(Collections.singletonMap("itemIdentifier", run.getKey()));
+                    }
+                } catch (ExecutionException e) {
+                    LOG.error("Record {} failed", run.getKey(), e.getCause());
+                    failures.add(Collections.singletonMap("itemIdentifier", run.getKey()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running sqs batch", e);
+        } finally {
+            browserPool.shutdownNow();
+            testPool.shutdownNow();
+        }
+
+        LOG.info("PROCESSED {} RECORDS, {} FAILED OR DEFERRED", records.size(), failures.size());
+        Map<String, Object> response = new HashMap<>();
+        response.put("batchItemFailures", failures);
+        return response;
+    }
+}
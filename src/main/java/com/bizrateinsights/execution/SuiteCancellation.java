@@ -0,0 +1,71 @@
+package com.bizrateinsights.execution;
+
+import com.bizrateinsights.results.ResultStore;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cancelled suites, marked by a "cancelled/[runId]" object in the result store that holds the reason. A cancelled
+ * suite stays cancelled, so once a container has seen the marker it never looks again. A suite that is not cancelled is
+ * looked up again at most every {@code recheckMillis}, so a container draining a cancelled suite's triggers costs one
+ * listing per suite, not one per trigger.
+ */
+@Log4j2
+public class SuiteCancellation {
+
+    private static final Logger LOG = LogManager.getLogger(SuiteCancellation.class);
+    public static final String CANCELLED_PREFIX = "cancelled/";
+
+    private final ResultStore resultStore;
+    private final long recheckMillis;
+    private final Map<String, String> reasons = new ConcurrentHashMap<>();
+    private final Map<String, Long> checkedAt = new ConcurrentHashMap<>();
+
+    /**
+     * @param recheckMillis = how long a suite that was not cancelled is assumed to still not be
+     */
+    public SuiteCancellation(ResultStore resultStore, long recheckMillis) {
+        this.resultStore = resultStore;
+        this.recheckMillis = recheckMillis;
+    }
+
+    /**
+     * @param reason = shown in the suite report, I.E. "cancelled on request"
+     */
+    public void cancel(String runId, String reason) {
+        LOG.info("CANCELLING SUITE {}: {}", runId, reason);
+        resultStore.putResult(CANCELLED_PREFIX + runId, reason);
+        reasons.put(runId, reason);
+    }
+
+    public boolean isCancelled(String runId) {
+        return getReason(runId) != null;
+    }
+
+    /**
+     * @return why the suite was cancelled, null if it was not
+     */
+    public String getReason(String runId) {
+        String reason = reasons.get(runId);
+        if (reason != null) {
+            return reason;
+        }
+        long now = System.currentTimeMillis();
+        Long lastChecked = checkedAt.get(runId);
+        if (lastChecked != null && now - lastChecked < recheckMillis) {
+            return null;
+        }
+
+        String key = CANCELLED_PREFIX + runId;
+        if (resultStore.getResultKeys(key).contains(key)) {
+            reason = resultStore.getResult(key);
+            reasons.put(runId, reason);
+        }
+        checkedAt.put(runId, now);
+        return reason;
+    }
+}
@@ -0,0 +1,73 @@
+package com.bizrateinsights.execution;
+
+import com.bizrateinsights.JunitUtils;
+import com.bizrateinsights.OutcomeListener;
+import com.bizrateinsights.model.TestOutcome;
+import com.bizrateinsights.selenium.LambdaWebdriverFactory;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a junit shard on a worker thread and stops it at a deadline, so the invocation still has time to record
+ * results before lambda kills it. A stopped run is interrupted and its browser sessions are quit, which also
+ * unblocks any webdriver call the test is waiting on. Methods that did not finish are reported as timed out.
+ */
+@Log4j2
+public class TestWatchdog {
+
+    private static final Logger LOG = LogManager.getLogger(TestWatchdog.class);
+    private static final long INTERRUPT_GRACE_MILLIS = 5000;
+
+    /**
+     * @param clazz = full class name
+     * @param testMethods = methods of the class to run
+     * @param deadline = epoch millis by which the run must have stopped
+     * @return one outcome per requested method
+     */
+    public List<TestOutcome> run(String clazz, List<String> testMethods, long deadline) {
+        OutcomeListener listener = new OutcomeListener();
+        long budget = deadline - System.currentTimeMillis();
+        if (budget <= 0) {
+            LOG.warn("NO TIME LEFT TO START {} {}", clazz, testMethods);
+            return listener.getTimedOutOutcomes(testMethods);
+        }
+
+        AtomicReference<RuntimeException> error = new AtomicReference<>();
+        Thread worker = new Thread(() -> {
+            try {
+                JunitUtils.runJunitTests(clazz, testMethods, listener);
+            } catch (RuntimeException e) {
+                error.set(e);
+            } finally {
+                //sessions the tests never released would outlive the thread
+                LambdaWebdriverFactory.quitWebdrivers(Thread.currentThread(), "not released by " + clazz);
+            }
+        }, "test-" + clazz);
+        worker.setDaemon(true);
+        worker.start();
+
+        try {
+            worker.join(budget);
+            if (!worker.isAlive()) {
+                if (error.get() != null) {
+                    throw error.get();
+                }
+                return listener.getOutcomes(testMethods);
+            }
+
+            LOG.warn("TIMEOUT - stopping {} {} after {} ms", clazz, testMethods, budget);
+            worker.interrupt();
+            LambdaWebdriverFactory.quitWebdrivers(worker, "timed out");
+            worker.join(INTERRUPT_GRACE_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            worker.interrupt();
+            LambdaWebdriverFactory.quitWebdrivers(worker, "interrupted");
+        }
+        return listener.getTimedOutOutcomes(testMethods);
+    }
+}
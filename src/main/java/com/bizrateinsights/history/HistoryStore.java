@@ -0,0 +1,127 @@
+package com.bizrateinsights.history;
+
+import com.bizrateinsights.results.ResultStore;
+import com.bizrateinsights.results.VersionedResult;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A history kept as a single json object in the result store, which is updated with the final results of one suite
+ * at a time. It remembers the last suites it was updated with, so a suite is folded in once however often its update
+ * is applied, and updates are compare-and-set, so suites finishing together don't overwrite each other's results:
+ * <p>
+ * {"runs": ["[runId]", ...], "entries": {...}}
+ *
+ * @param <T> = entries of the history, I.E. consecutive failures keyed by test key
+ */
+@Log4j2
+public class HistoryStore<T> {
+
+    private static final Logger LOG = LogManager.getLogger(HistoryStore.class);
+    private static final Gson GSON = new Gson();
+    private static final Type RUNS_TYPE = new TypeToken<List<String>>() {}.getType();
+    private static final String RUNS = "runs";
+    private static final String ENTRIES = "entries";
+    private static final int RUNS_KEPT = 100;
+    private static final int MAX_ATTEMPTS = 10;
+
+    private final ResultStore resultStore;
+    private final String key;
+    private final Type entriesType;
+    private final Supplier<T> empty;
+
+    /**
+     * @param key = result key of the history, I.E. "history/failures.json"
+     * @param entriesType = type of the entries, I.E. Map&lt;String, Integer&gt;
+     * @param empty = entries of a history that was never stored
+     */
+    public HistoryStore(ResultStore resultStore, String key, Type entriesType, Supplier<T> empty) {
+        this.resultStore = resultStore;
+        this.key = key;
+        this.entriesType = entriesType;
+        this.empty = empty;
+    }
+
+    /**
+     * @return the stored entries, empty if the history was never stored
+     */
+    public T load() {
+        VersionedResult stored = resultStore.getVersionedResult(key);
+        return stored == null ? empty.get() : parse(stored.getContent()).entries;
+    }
+
+    /**
+     * Fold a suite's results into the stored history, unless they already were. If another suite updated the history
+     * in the meantime, it is read again and the results are folded into that.
+     *
+     * @param runId = suite run UUID
+     * @param update = folds the suite's results into the entries, once per attempt
+     * @return the entries as stored, null if the suite's results already were
+     */
+    public T apply(String runId, Consumer<T> update) {
+        for (int attempt = 1; ; attempt++) {
+            VersionedResult stored = resultStore.getVersionedResult(key);
+            Document document = stored == null ? new Document(new ArrayList<>(), empty.get()) : parse(stored.getContent());
+            if (document.runs.contains(runId)) {
+                LOG.info("{} ALREADY HOLDS THE RESULTS OF {}", key, runId);
+                return null;
+            }
+
+            update.accept(document.entries);
+            document.runs.add(runId);
+            if (document.runs.size() > RUNS_KEPT) {
+                document.runs.subList(0, document.runs.size() - RUNS_KEPT).clear();
+            }
+            if (resultStore.replaceResult(key, document.toJson(), stored == null ? null : stored.getVersion())) {
+                return document.entries;
+            }
+            if (attempt >= MAX_ATTEMPTS) {
+                throw new IllegalStateException("Could not update " + key + " with " + runId + " in " + attempt + " attempts");
+            }
+            LOG.info("{} WAS UPDATED CONCURRENTLY, FOLDING IN {} AGAIN", key, runId);
+        }
+    }
+
+    private Document parse(String json) {
+        JsonElement element = new JsonParser().parse(json);
+        if (element == null || !element.isJsonObject()) {
+            return new Document(new ArrayList<>(), empty.get());
+        }
+        JsonObject object = element.getAsJsonObject();
+        if (object.has(RUNS) && object.has(ENTRIES)) {
+            return new Document(GSON.fromJson(object.get(RUNS), RUNS_TYPE), GSON.fromJson(object.get(ENTRIES), entriesType));
+        }
+        //stored before the runs were recorded, the whole object holds the entries
+        return new Document(new ArrayList<>(), GSON.fromJson(object, entriesType));
+    }
+
+    private class Document {
+
+        private final List<String> runs;
+        private final T entries;
+
+        private Document(List<String> runs, T entries) {
+            this.runs = runs == null ? new ArrayList<>() : runs;
+            this.entries = entries == null ? empty.get() : entries;
+        }
+
+        private String toJson() {
+            JsonObject object = new JsonObject();
+            object.add(RUNS, GSON.toJsonTree(runs, RUNS_TYPE));
+            object.add(ENTRIES, GSON.toJsonTree(entries, entriesType));
+            return GSON.toJson(object);
+        }
+    }
+}
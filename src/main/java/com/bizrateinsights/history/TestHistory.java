@@ -0,0 +1,167 @@
+package com.bizrateinsights.history;
+
+import com.bizrateinsights.dispatch.DurationEstimator;
+import com.bizrateinsights.model.TestResultRecord;
+import com.bizrateinsights.results.ResultStore;
+import com.google.gson.reflect.TypeToken;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rolling run times and outcomes of every test across suite runs, kept as a single json object in the result store.
+ * Like the {@link com.bizrateinsights.retry.FailureHistory}, it is updated once per suite from the suite's final results
+ * and read once per container, so setup mode can plan with it without any per-test lookups. Tests are keyed by
+ * {@link TestResultRecord#getTestKey()}, so each matrix cell has its own statistics.
+ */
+@Log4j2
+public class TestHistory {
+
+    private static final Logger LOG = LogManager.getLogger(TestHistory.class);
+    public static final String HISTORY_KEY = "history/tests.json";
+    private static final Type HISTORY_TYPE = new TypeToken<Map<String, TestStats>>() {}.getType();
+
+    private final HistoryStore<Map<String, TestStats>> historyStore;
+    private final int window;
+    private volatile Map<String, TestStats> stats;
+
+    /**
+     * @param window = suite runs kept per test for run time percentiles and flake rates
+     */
+    public TestHistory(ResultStore resultStore, int window) {
+        this.historyStore = new HistoryStore<>(resultStore, HISTORY_KEY, HISTORY_TYPE, HashMap::new);
+        this.window = Math.max(1, window);
+    }
+
+    private Map<String, TestStats> getStats() {
+        if (stats == null) {
+            synchronized (this) {
+                if (stats == null) {
+                    try {
+                        stats = Collections.unmodifiableMap(historyStore.load());
+                    } catch (RuntimeException e) {
+                        LOG.warn("Could not load test history, planning without it", e);
+                        stats = Collections.emptyMap();
+                    }
+                }
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * @param matrixCell = test matrix cell of the test, null for tests without a matrix
+     * @return statistics of the test, null if it has no recorded runs
+     */
+    public TestStats getStats(String testClass, String method, String matrixCell) {
+        return getStats().get(TestResultRecord.getTestKey(testClass, method, matrixCell));
+    }
+
+    /**
+     * @param count = number of tests to return
+     * @return the tests with the longest median run time, slowest first, keyed by test key
+     */
+    public Map<String, TestStats> getSlowest(int count) {
+        return select(Comparator.comparingLong((Map.Entry<String, TestStats> x) -> x.getValue().getMedianMillis()).reversed(),
+                count, 0);
+    }
+
+    /**
+     * @param minFlakeRate = 0 to 1, I.E. 0.05 for tests that were flaky in more than 5% of their recent runs
+     * @return the tests above the flake rate, flakiest first, keyed by test key
+     */
+    public Map<String, TestStats> getFlaky(double minFlakeRate) {
+        return select(Comparator.comparingDouble((Map.Entry<String, TestStats> x) -> x.getValue().getFlakeRate()).reversed(),
+                Integer.MAX_VALUE, minFlakeRate);
+    }
+
+    private Map<String, TestStats> select(Comparator<Map.Entry<String, TestStats>> order, int count, double minFlakeRate) {
+        Map<String, TestStats> selected = new LinkedHashMap<>();
+        getStats().entrySet().stream()
+                .filter(x -> minFlakeRate <= 0 || x.getValue().getFlakeRate() > minFlakeRate)
+                .sorted(order)
+                .limit(count)
+                .forEachOrdered(x -> selected.put(x.getKey(), x.getValue()));
+        return selected;
+    }
+
+    /**
+     * @param matrixCell = test matrix cell the estimated tests run in, null for tests without a matrix
+     * @param defaultMillis = estimate for tests of classes without any recorded run times
+     * @return estimates from the median of each test's recent run times. Tests without recorded run times are expected
+     * to take the average median of the other tests of their class in the same cell, else the default
+     */
+    public DurationEstimator getDurationEstimator(String matrixCell, long defaultMillis) {
+        Map<String, long[]> classTotals = new HashMap<>();
+        for (Map.Entry<String, TestStats> entry : getStats().entrySet()) {
+            String key = entry.getKey();
+            int cellStart = key.indexOf('@');
+            String cell = cellStart < 0 ? null : key.substring(cellStart + 1);
+            long median = entry.getValue().getMedianMillis();
+            if (median >= 0 && (matrixCell == null ? cell == null : matrixCell.equals(cell))) {
+                long[] totals = classTotals.computeIfAbsent(key.substring(0, key.indexOf('#')), x -> new long[2]);
+                totals[0] += median;
+                totals[1]++;
+            }
+        }
+
+        return (className, methodName) -> {
+            TestStats testStats = getStats(className, methodName, matrixCell);
+            long median = testStats == null ? -1 : testStats.getMedianMillis();
+            if (median >= 0) {
+                return median;
+            }
+            long[] totals = classTotals.get(className);
+            return totals == null ? defaultMillis : totals[0] / totals[1];
+        };
+    }
+
+    /**
+     * Start an update of the stored history with a suite's final results.
+     *
+     * @param runId = suite run UUID, whose results are only counted once
+     */
+    public Update update(String runId) {
+        return new Update(runId);
+    }
+
+    /**
+     * Accumulates a suite's results, I.E. while its manifest is built, and stores the history once at the end.
+     */
+    public class Update {
+
+        private final String runId;
+        private final List<TestResultRecord> records = new ArrayList<>();
+
+        private Update(String runId) {
+            this.runId = runId;
+        }
+
+        public void add(TestResultRecord record) {
+            if (record.getStatus() == TestResultRecord.Status.SKIPPED) {
+                return; //not run, so it says nothing about run time or flakiness
+            }
+            records.add(record);
+        }
+
+        public void save() {
+            Map<String, TestStats> history = historyStore.apply(runId, x -> {
+                for (TestResultRecord record : records) {
+                    x.computeIfAbsent(record.getTestKey(), y -> new TestStats()).add(record, window);
+                }
+            });
+            if (history != null) {
+                stats = Collections.unmodifiableMap(history);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.bizrateinsights.history;
+
+import com.bizrateinsights.model.TestResultRecord;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.Arrays;
+
+/**
+ * Rolling statistics of a single test in the test history: run times and outcomes of its most recent suite runs, and
+ * lifetime counts. Field names are shortened, since the history holds one of these per test.
+ */
+public class TestStats {
+
+    private static final char PASSED = 'P';
+    private static final char PASSED_ON_RETRY = 'R';
+    private static final char FAILED = 'F';
+    private static final char TIMED_OUT = 'T';
+
+    /**
+     * Run times of the most recent passed or failed runs, oldest first. Timed out runs were cut short, so they are left out.
+     */
+    @SerializedName("d")
+    private int[] durations = new int[0];
+
+    /**
+     * Outcomes of the most recent suite runs, oldest first: P passed, R passed after a retry, F failed, T timed out.
+     */
+    @SerializedName("o")
+    private String outcomes = "";
+
+    @SerializedName("n")
+    private int runs;
+    @SerializedName("p")
+    private int passes;
+    @SerializedName("f")
+    private int failures;
+    @SerializedName("r")
+    private int retried;
+
+    /**
+     * Add the final result of a suite run, keeping the most recent window runs.
+     */
+    void add(TestResultRecord record, int window) {
+        runs++;
+        if (record.getAttempt() > 0) {
+            retried++;
+        }
+
+        char outcome;
+        switch (record.getStatus()) {
+            case PASSED:
+                passes++;
+                outcome = record.getAttempt() > 0 ? PASSED_ON_RETRY : PASSED;
+                break;
+            case TIMED_OUT:
+                failures++;
+                outcome = TIMED_OUT;
+                break;
+            default:
+                failures++;
+                outcome = FAILED;
+        }
+        outcomes = (outcomes + outcome).substring(Math.max(0, outcomes.length() + 1 - window));
+
+        if (record.getStatus() != TestResultRecord.Status.TIMED_OUT) {
+            int keep = Math.min(durations.length, window - 1);
+            int[] updated = Arrays.copyOfRange(durations, durations.length - keep, durations.length + 1);
+            updated[keep] = (int) Math.min(Integer.MAX_VALUE, record.getRunTimeMillis());
+            durations = updated;
+        }
+    }
+
+    /**
+     * @param percentile = 0 to 100
+     * @return nearest rank percentile of the recent run times, -1 without any
+     */
+    public long getPercentileMillis(double percentile) {
+        if (durations.length == 0) {
+            return -1;
+        }
+        int[] sorted = durations.clone();
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    public long getMedianMillis() {
+        return getPercentileMillis(50);
+    }
+
+    /**
+     * A run is flaky if it only passed on a retry, or if it passed where the run before it failed or the other way
+     * around. Tests that always fail are not flaky.
+     *
+     * @return flaky share of the recent runs, 0 to 1
+     */
+    public double getFlakeRate() {
+        if (outcomes.isEmpty()) {
+            return 0;
+        }
+        int flaky = 0;
+        for (int i = 0; i < outcomes.length(); i++) {
+            char outcome = outcomes.charAt(i);
+            if (outcome == PASSED_ON_RETRY || (i > 0 && isPass(outcome) != isPass(outcomes.charAt(i - 1)))) {
+                flaky++;
+            }
+        }
+        return (double) flaky / outcomes.length();
+    }
+
+    private static boolean isPass(char outcome) {
+        return outcome == PASSED || outcome == PASSED_ON_RETRY;
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    public int getPasses() {
+        return passes;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+
+    public int getRetried() {
+        return retried;
+    }
+
+    @Override
+    public String toString() {
+        return "p50: " + getMedianMillis() + " ms, p90: " + getPercentileMillis(90) + " ms, runs: " + runs +
+                ", passes: " + passes + ", failures: " + failures + ", retried: " + retried +
+                ", flake rate: " + String.format("%.0f%%", getFlakeRate() * 100);
+    }
+}
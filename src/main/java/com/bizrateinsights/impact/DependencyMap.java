@@ -0,0 +1,135 @@
+package com.bizrateinsights.impact;
+
+import com.bizrateinsights.history.HistoryStore;
+import com.bizrateinsights.model.TestResultRecord;
+import com.bizrateinsights.results.ResultStore;
+import com.google.gson.reflect.TypeToken;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * What every test depended on in its recent runs - url paths, page objects and components recorded by the
+ * {@link DependencyRecorder} - kept as a single json object in the result store next to the test history. Like the
+ * {@link com.bizrateinsights.history.TestHistory}, it is updated once per suite from the suite's final results, so
+ * every full run refreshes it. Tests are keyed by class and method, across matrix cells.
+ */
+@Log4j2
+public class DependencyMap {
+
+    private static final Logger LOG = LogManager.getLogger(DependencyMap.class);
+    public static final String MAP_KEY = "history/dependencies.json";
+    private static final Type MAP_TYPE = new TypeToken<Map<String, TreeSet<String>>>() {}.getType();
+
+    private final HistoryStore<Map<String, TreeSet<String>>> historyStore;
+
+    public DependencyMap(ResultStore resultStore) {
+        this.historyStore = new HistoryStore<>(resultStore, MAP_KEY, MAP_TYPE, HashMap::new);
+    }
+
+    /**
+     * Select the tests impacted by a change. A test is impacted if its class is one of the changed items, or if it
+     * recorded a dependency on one: an equal name, a class of that simple name, or, for items starting with "/", a url
+     * path under it.
+     *
+     * @param tests = candidate test methods keyed by class
+     * @param changed = changed pages, components and classes, I.E. ["/checkout", "CartPage", "com.x.pages.SearchPage"]
+     * @param includeUnmapped = also select tests without any recorded dependencies, I.E. tests added since the last full run
+     * @return the impacted test methods keyed by class, in the order of the candidates
+     */
+    public Map<String, List<String>> selectImpacted(Map<String, List<String>> tests, Collection<String> changed, boolean includeUnmapped) {
+        Map<String, TreeSet<String>> dependencies = historyStore.load();
+        Map<String, List<String>> impacted = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> classTests : tests.entrySet()) {
+            String testClass = classTests.getKey();
+            boolean classChanged = changed.stream().anyMatch(x -> matches(testClass, x));
+            for (String method : classTests.getValue()) {
+                TreeSet<String> testDependencies = dependencies.get(TestResultRecord.getTestKey(testClass, method, null));
+                boolean selected = classChanged
+                        || (testDependencies == null ? includeUnmapped
+                        : testDependencies.stream().anyMatch(x -> changed.stream().anyMatch(y -> matches(x, y))));
+                if (selected) {
+                    impacted.computeIfAbsent(testClass, x -> new ArrayList<>()).add(method);
+                }
+            }
+        }
+        LOG.info("{} CLASSES IMPACTED BY {}", impacted.size(), changed);
+        return impacted;
+    }
+
+    /**
+     * @param dependency = recorded dependency, I.E. "/checkout/payment" or "com.x.pages.CartPage"
+     * @param changed = changed item, I.E. "/checkout" or "CartPage"
+     */
+    static boolean matches(String dependency, String changed) {
+        if (changed.startsWith("/")) {
+            String prefix = changed.endsWith("/") ? changed : changed + "/";
+            return dependency.equals(changed) || dependency.startsWith(prefix) || changed.equals("/");
+        }
+        return dependency.equals(changed) || dependency.endsWith("." + changed);
+    }
+
+    /**
+     * Start an update of the stored map with a suite's final results.
+     *
+     * @param runId = suite run UUID, whose results are only folded in once
+     */
+    public Update update(String runId) {
+        return new Update(runId);
+    }
+
+    /**
+     * Accumulates a suite's results, I.E. while its manifest is built, and stores the map once at the end.
+     */
+    public class Update {
+
+        private final String runId;
+        private final List<TestResultRecord> records = new ArrayList<>();
+
+        private Update(String runId) {
+            this.runId = runId;
+        }
+
+        public void add(TestResultRecord record) {
+            if (record.getDependencies() == null || record.getDependencies().isEmpty()) {
+                return; //skipped, or ran without recording anything
+            }
+            records.add(record);
+        }
+
+        public void save() {
+            if (!records.isEmpty()) {
+                historyStore.apply(runId, this::fold);
+            }
+        }
+
+        /**
+         * The first run of a test in the suite replaces what it depended on in earlier suites if it passed. A failed
+         * run may have stopped early, so it only adds to it, and so do the test's runs in other matrix cells.
+         */
+        private void fold(Map<String, TreeSet<String>> dependencies) {
+            Set<String> added = new HashSet<>();
+            for (TestResultRecord record : records) {
+                String key = TestResultRecord.getTestKey(record.getTestClass(), record.getMethod(), null);
+                TreeSet<String> testDependencies = dependencies.get(key);
+                boolean firstInSuite = added.add(key);
+                if (testDependencies == null || (firstInSuite && record.getStatus() == TestResultRecord.Status.PASSED)) {
+                    testDependencies = new TreeSet<>();
+                    dependencies.put(key, testDependencies);
+                }
+                testDependencies.addAll(record.getDependencies());
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.bizrateinsights.impact;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.AbstractWebDriverEventListener;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records what each test of a trigger depends on while it runs: the paths of the urls its browser visited, and the page
+ * objects and components it used. The recordings end up in the test's result record, and from there in the
+ * {@link DependencyMap} that "impacted" runs select tests with.
+ * <p>
+ * Like the {@link com.bizrateinsights.artifacts.ArtifactPipeline}, the recorder is bound to the thread running the
+ * trigger and inherited by the test thread. Page objects register themselves with {@link #record(Class)}, I.E. from
+ * the constructor of a shared base page. Outside a trigger, I.E. when running tests from the IDE, nothing is recorded.
+ */
+public class DependencyRecorder {
+
+    private static final InheritableThreadLocal<DependencyRecorder> CURRENT = new InheritableThreadLocal<>();
+
+    private final Map<String, Set<String>> dependencies = new ConcurrentHashMap<>();
+    private volatile String currentMethod;
+
+    public void bind() {
+        CURRENT.set(this);
+    }
+
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return what a method of the trigger depended on, sorted
+     */
+    public List<String> getDependencies(String method) {
+        Set<String> methodDependencies = dependencies.get(method);
+        if (methodDependencies == null) {
+            return Collections.emptyList();
+        }
+        synchronized (methodDependencies) {
+            return new ArrayList<>(methodDependencies);
+        }
+    }
+
+    /**
+     * Attribute what is recorded from now on to a test method, I.E. from a junit @Before.
+     */
+    public static void startTest(String method) {
+        DependencyRecorder recorder = CURRENT.get();
+        if (recorder != null) {
+            recorder.currentMethod = method;
+        }
+    }
+
+    /**
+     * @param dependency = page, component or class name the running test depends on
+     */
+    public static void record(String dependency) {
+        DependencyRecorder recorder = CURRENT.get();
+        if (recorder == null || recorder.currentMethod == null || dependency == null || dependency.isEmpty()) {
+            return;
+        }
+        Set<String> methodDependencies = recorder.dependencies.computeIfAbsent(recorder.currentMethod, x -> new TreeSet<>());
+        synchronized (methodDependencies) {
+            methodDependencies.add(dependency);
+        }
+    }
+
+    /**
+     * @param pageObject = page object class the running test used, recorded by its full name
+     */
+    public static void record(Class<?> pageObject) {
+        record(pageObject.getName());
+    }
+
+    /**
+     * @param url = url the running test's browser visited, recorded by its path, I.E. "/checkout/payment"
+     */
+    public static void recordUrl(String url) {
+        String path = getPath(url);
+        if (path != null) {
+            record(path);
+        }
+    }
+
+    /**
+     * @return the path of an http(s) url, "/" for the root, null for anything else, I.E. about:blank or data: urls
+     */
+    static String getPath(String url) {
+        try {
+            URI uri = new URI(url);
+            if (uri.getScheme() == null || !uri.getScheme().startsWith("http")) {
+                return null;
+            }
+            String path = uri.getPath();
+            return path == null || path.isEmpty() ? "/" : path;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the driver, recording the url of every page it navigates to while a recorder is bound. Release the
+     * original driver, not the returned one
+     */
+    public static WebDriver recordNavigation(WebDriver webDriver) {
+        if (CURRENT.get() == null) {
+            return webDriver;
+        }
+        return new EventFiringWebDriver(webDriver).register(new AbstractWebDriverEventListener() {
+            @Override
+            public void afterNavigateTo(String url, WebDriver driver) {
+                recordUrl(url);
+            }
+
+            @Override
+            public void afterNavigateBack(WebDriver driver) {
+                recordUrl(driver.getCurrentUrl());
+            }
+
+            @Override
+            public void afterNavigateForward(WebDriver driver) {
+                recordUrl(driver.getCurrentUrl());
+            }
+        });
+    }
+}
@@ -0,0 +1,107 @@
+package com.bizrateinsights.index;
+
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test index written into the jar at build time by {@link TestIndexGenerator}. Loading it is a single pass over the
+ * index lines, so setup mode does not need to scan the classpath or reflect over test classes.
+ */
+@Log4j2
+public class TestIndex {
+
+    public static final String RESOURCE_PATH = "META-INF/test-index.tsv";
+    private static final Logger LOG = LogManager.getLogger(TestIndex.class);
+
+    private final Map<String, List<TestIndexEntry>> entriesByClass;
+    private final Map<String, TestIndexEntry> entriesByMethod;
+
+    public TestIndex(List<TestIndexEntry> entries) {
+        Map<String, List<TestIndexEntry>> byClass = new LinkedHashMap<>();
+        Map<String, TestIndexEntry> byMethod = new HashMap<>(entries.size() * 2);
+        for (TestIndexEntry entry : entries) {
+            byClass.computeIfAbsent(entry.getClassName(), x -> new ArrayList<>()).add(entry);
+            byMethod.putIfAbsent(getMethodKey(entry.getClassName(), entry.getMethodName()), entry);
+        }
+        this.entriesByClass = byClass;
+        this.entriesByMethod = byMethod;
+    }
+
+    /**
+     * @return index classes in the given package, in index order
+     */
+    public List<String> getClasses(String pkg) {
+        List<String> classes = new ArrayList<>();
+        for (String className : entriesByClass.keySet()) {
+            if (className.startsWith(pkg + ".")) {
+                classes.add(className);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * @return index entries of a class, including ignored tests
+     */
+    public List<TestIndexEntry> getEntries(String className) {
+        return entriesByClass.getOrDefault(className, Collections.emptyList());
+    }
+
+    /**
+     * @return index entry of a test method, null if the method is not indexed
+     */
+    public TestIndexEntry getEntry(String className, String methodName) {
+        return entriesByMethod.get(getMethodKey(className, methodName));
+    }
+
+    /**
+     * @return [class]#[method]
+     */
+    private static String getMethodKey(String className, String methodName) {
+        return className + "#" + methodName;
+    }
+
+    public boolean containsClass(String className) {
+        return entriesByClass.containsKey(className);
+    }
+
+    /**
+     * Load the index from the classpath.
+     *
+     * @return the index, or null when the jar was built without one
+     */
+    public static TestIndex load() {
+        InputStream in = TestIndex.class.getClassLoader().getResourceAsStream(RESOURCE_PATH);
+        if (in == null) {
+            return null;
+        }
+
+        List<TestIndexEntry> entries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    entries.add(TestIndexEntry.fromLine(line));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        LOG.info("LOADED TEST INDEX WITH {} ENTRIES", entries.size());
+        return new TestIndex(entries);
+    }
+}
@@ -0,0 +1,87 @@
+package com.bizrateinsights.index;
+
+import com.bizrateinsights.selenium.MatrixCell;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single junit test method recorded in the build-time test index. Besides junit categories, its tags record what
+ * setup mode needs to know to dispatch it, so it never has to load the test class. These tags start with "@", which a
+ * category's simple name cannot:
+ * <p>
+ * {@value #NON_BROWSER_TAG} - the method or its class is a {@link com.bizrateinsights.NonBrowserTest}
+ * <br>
+ * {@value #MATRIX_TAG_PREFIX}[cell]+[cell]... - cells of the method's or class's {@link com.bizrateinsights.TestMatrix},
+ * I.E. "@matrix:CHROMIUM/DESKTOP+CHROMIUM/MOBILE"
+ */
+@Value
+@AllArgsConstructor
+public class TestIndexEntry {
+
+    private static final String FIELD_SEPARATOR = "\t";
+    private static final String TAG_SEPARATOR = ",";
+    private static final String CELL_SEPARATOR = "+";
+    public static final String NON_BROWSER_TAG = "@nonBrowser";
+    public static final String MATRIX_TAG_PREFIX = "@matrix:";
+
+    String className;
+    String methodName;
+    boolean ignored;
+    List<String> tags;
+
+    /**
+     * @return one index line: class, method, ignored flag and comma separated tags, tab separated
+     */
+    public String toLine() {
+        return className + FIELD_SEPARATOR + methodName + FIELD_SEPARATOR + ignored + FIELD_SEPARATOR + String.join(TAG_SEPARATOR, tags);
+    }
+
+    public boolean isNonBrowser() {
+        return tags.contains(NON_BROWSER_TAG);
+    }
+
+    /**
+     * @return cells of the test's {@link com.bizrateinsights.TestMatrix}, null if it has none
+     */
+    public List<MatrixCell> getMatrix() {
+        for (String tag : tags) {
+            if (tag.startsWith(MATRIX_TAG_PREFIX)) {
+                List<MatrixCell> cells = new ArrayList<>();
+                for (String cell : tag.substring(MATRIX_TAG_PREFIX.length()).split("\\" + CELL_SEPARATOR)) {
+                    if (!cell.isEmpty()) {
+                        cells.add(MatrixCell.parse(cell));
+                    }
+                }
+                return cells;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the tag recording a test matrix of the given cells
+     */
+    public static String getMatrixTag(List<MatrixCell> cells) {
+        StringBuilder tag = new StringBuilder(MATRIX_TAG_PREFIX);
+        for (MatrixCell cell : cells) {
+            tag.append(tag.length() > MATRIX_TAG_PREFIX.length() ? CELL_SEPARATOR : "").append(cell);
+        }
+        return tag.toString();
+    }
+
+    public static TestIndexEntry fromLine(String line) {
+        String[] fields = line.split(FIELD_SEPARATOR, -1);
+        if (fields.length < 3) {
+            throw new IllegalArgumentException("Malformed test index line: " + line);
+        }
+        List<String> tags = fields.length < 4 || fields[3].isEmpty()
+                ? Collections.emptyList()
+                : Arrays.asList(fields[3].split(TAG_SEPARATOR));
+        return new TestIndexEntry(fields[0], fields[1], Boolean.parseBoolean(fields[2]), tags);
+    }
+}
@@ -0,0 +1,122 @@
+package com.bizrateinsights.index;
+
+import com.bizrateinsights.NonBrowserTest;
+import com.bizrateinsights.TestMatrix;
+import com.bizrateinsights.selenium.Browsers;
+import com.bizrateinsights.selenium.Devices;
+import com.bizrateinsights.selenium.MatrixCell;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Build step that writes {@link TestIndex#RESOURCE_PATH} into the compiled classes directory, so it is packaged with
+ * the lambda. Run by the exec-maven-plugin in the process-classes phase.
+ * <p>
+ * Every class with "_Test" in its name is indexed with its @Test methods, their @Ignore state, the simple names
+ * of any junit @Category on the method or class, and the {@link TestIndexEntry} tags of its @TestMatrix and
+ * @NonBrowserTest annotations.
+ */
+public class TestIndexGenerator {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    /**
+     * @param args = [compiled classes directory]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: TestIndexGenerator [classes directory]");
+        }
+        Path classesDir = Paths.get(args[0]);
+        List<TestIndexEntry> entries = generate(classesDir);
+
+        Path indexFile = classesDir.resolve(TestIndex.RESOURCE_PATH);
+        Files.createDirectories(indexFile.getParent());
+        try (Writer writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+            writer.write("#class\tmethod\tignored\ttags\n");
+            for (TestIndexEntry entry : entries) {
+                writer.write(entry.toLine());
+                writer.write('\n');
+            }
+        }
+        System.out.println("Wrote " + entries.size() + " tests to " + indexFile);
+    }
+
+    public static List<TestIndexEntry> generate(Path classesDir) throws IOException, ClassNotFoundException {
+        List<String> classNames;
+        try (Stream<Path> files = Files.walk(classesDir)) {
+            classNames = files
+                    .map(x -> classesDir.relativize(x).toString())
+                    .filter(x -> x.endsWith(CLASS_SUFFIX) && x.contains("_Test") && !x.contains("$"))
+                    .map(x -> x.substring(0, x.length() - CLASS_SUFFIX.length()).replace('/', '.').replace('\\', '.'))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        List<TestIndexEntry> entries = new ArrayList<>();
+        ClassLoader classLoader = TestIndexGenerator.class.getClassLoader();
+        for (String className : classNames) {
+            //do not initialize - test classes may read configuration in static blocks
+            Class<?> clazz = Class.forName(className, false, classLoader);
+            boolean classIgnored = clazz.isAnnotationPresent(Ignore.class);
+            List<Method> methods = Arrays.stream(clazz.getDeclaredMethods())
+                    .filter(x -> x.isAnnotationPresent(Test.class))
+                    .sorted(Comparator.comparing(Method::getName))
+                    .collect(Collectors.toList());
+
+            for (Method method : methods) {
+                List<String> tags = new ArrayList<>();
+                addCategories(tags, clazz.getAnnotation(Category.class));
+                addCategories(tags, method.getAnnotation(Category.class));
+                if (clazz.isAnnotationPresent(NonBrowserTest.class) || method.isAnnotationPresent(NonBrowserTest.class)) {
+                    tags.add(TestIndexEntry.NON_BROWSER_TAG);
+                }
+                TestMatrix matrix = method.isAnnotationPresent(TestMatrix.class)
+                        ? method.getAnnotation(TestMatrix.class)
+                        : clazz.getAnnotation(TestMatrix.class);
+                if (matrix != null) {
+                    tags.add(TestIndexEntry.getMatrixTag(getCells(matrix)));
+                }
+                boolean ignored = classIgnored || method.isAnnotationPresent(Ignore.class);
+                entries.add(new TestIndexEntry(className, method.getName(), ignored, tags));
+            }
+        }
+        return entries;
+    }
+
+    private static List<MatrixCell> getCells(TestMatrix matrix) {
+        List<MatrixCell> cells = new ArrayList<>();
+        for (Browsers browser : matrix.browsers()) {
+            for (Devices device : matrix.devices()) {
+                cells.add(new MatrixCell(browser, device));
+            }
+        }
+        return cells;
+    }
+
+    private static void addCategories(List<String> tags, Category category) {
+        if (category == null) {
+            return;
+        }
+        for (Class<?> value : category.value()) {
+            if (!tags.contains(value.getSimpleName())) {
+                tags.add(value.getSimpleName());
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.bizrateinsights.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Phase durations and byte counts of one test trigger's run. The record is bound to the thread running the trigger
+ * and inherited by the threads it starts (test watchdog, binary downloads), so instrumented code only calls the static
+ * {@link #record} and {@link #recordBytes} - a no-op when no record is active.
+ * <p>
+ * Timing a phase costs two {@link System#nanoTime()} calls and an atomic add, with no allocation.
+ */
+public class InvocationMetrics {
+
+    private static final Logger METRICS_LOG = LogManager.getLogger("metrics");
+    public static final String NAMESPACE = "AutomationLambda";
+
+    private static final InheritableThreadLocal<InvocationMetrics> CURRENT = new InheritableThreadLocal<>();
+    private static final AtomicBoolean COLD_START = new AtomicBoolean(true);
+    private static volatile long initNanos;
+
+    private final String runId;
+    private final String testId;
+    private final boolean coldStart;
+    private final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+    private final AtomicLongArray bytes = new AtomicLongArray(Phase.values().length);
+
+    private InvocationMetrics(String runId, String testId, boolean coldStart) {
+        this.runId = runId;
+        this.testId = testId;
+        this.coldStart = coldStart;
+    }
+
+    /**
+     * Record how long the container took to initialize the handler. Reported by the first record of the container.
+     */
+    public static void recordInit(long startNanos) {
+        initNanos = System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Start a record for a trigger on the current thread. The first record of a container is flagged as a cold start
+     * and carries the init duration.
+     */
+    public static InvocationMetrics begin(String runId, String testId) {
+        InvocationMetrics metrics = new InvocationMetrics(runId, testId, COLD_START.getAndSet(false));
+        if (metrics.coldStart) {
+            metrics.nanos.set(Phase.INIT.ordinal(), initNanos);
+        }
+        CURRENT.set(metrics);
+        return metrics;
+    }
+
+    /**
+     * Record into the given record on the current thread, I.E. on a pooled thread working for a trigger.
+     *
+     * @param metrics = record to bind, null to stop recording
+     */
+    public static void bind(InvocationMetrics metrics) {
+        if (metrics == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(metrics);
+        }
+    }
+
+    /**
+     * Stop recording on the current thread, and log the record as an embedded metric format line.
+     */
+    public void end() {
+        CURRENT.remove();
+        METRICS_LOG.info(toJson(System.currentTimeMillis()));
+    }
+
+    /**
+     * Add the time since startNanos to a phase of the current thread's record.
+     *
+     * @param startNanos = {@link System#nanoTime()} at the start of the phase
+     */
+    public static void record(Phase phase, long startNanos) {
+        InvocationMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.nanos.addAndGet(phase.ordinal(), System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Add a byte count to a phase of the current thread's record.
+     */
+    public static void recordBytes(Phase phase, long count) {
+        InvocationMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.bytes.addAndGet(phase.ordinal(), count);
+        }
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public String getTestId() {
+        return testId;
+    }
+
+    public long getMillis(Phase phase) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos.get(phase.ordinal()));
+    }
+
+    public long getBytes(Phase phase) {
+        return bytes.get(phase.ordinal());
+    }
+
+    /**
+     * @return the record as a single line of CloudWatch embedded metric format json, with every phase duration and
+     * non-zero byte count as a metric, dimensioned by cold start
+     */
+    public String toJson(long timestamp) {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\"_aws\":{\"Timestamp\":").append(timestamp)
+                .append(",\"CloudWatchMetrics\":[{\"Namespace\":\"").append(NAMESPACE)
+                .append("\",\"Dimensions\":[[\"ColdStart\"]],\"Metrics\":[");
+        for (Phase phase : Phase.values()) {
+            json.append("{\"Name\":\"").append(phase.getMillisName()).append("\",\"Unit\":\"Milliseconds\"},");
+            if (getBytes(phase) > 0) {
+                json.append("{\"Name\":\"").append(phase.getBytesName()).append("\",\"Unit\":\"Bytes\"},");
+            }
+        }
+        json.setLength(json.length() - 1);
+        json.append("]}]},\"ColdStart\":\"").append(coldStart)
+                .append("\",\"RunId\":\"").append(runId)
+                .append("\",\"TestId\":\"").append(testId).append('"');
+        for (Phase phase : Phase.values()) {
+            json.append(",\"").append(phase.getMillisName()).append("\":").append(getMillis(phase));
+            if (getBytes(phase) > 0) {
+                json.append(",\"").append(phase.getBytesName()).append("\":").append(getBytes(phase));
+            }
+        }
+        return json.append('}').toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.bizrateinsights.metrics;
+
+/**
+ * Timed phases of a test invocation. Phases may overlap - the test phase includes the browser launch and screenshot
+ * of the tests it runs, and uploads run concurrently. The artifacts phase is the time spent waiting for uploads.
+ */
+public enum Phase {
+    INIT("Init"),
+    BINARIES("Binaries"),
+    BROWSER_LAUNCH("BrowserLaunch"),
+    TEST("Test"),
+    SCREENSHOT("Screenshot"),
+    /**
+     * Compressing the logs of failed tests. Its bytes are the browser logs captured in memory instead of stdout.
+     */
+    BROWSER_LOGS("BrowserLogs"),
+    UPLOAD("Upload"),
+    LISTING("Listing"),
+    DISPATCH("Dispatch"),
+    ARTIFACTS("Artifacts");
+
+    private final String metricName;
+
+    Phase(String metricName) {
+        this.metricName = metricName;
+    }
+
+    /**
+     * @return name of the phase's duration metric, I.E. "UploadMillis"
+     */
+    public String getMillisName() {
+        return metricName + "Millis";
+    }
+
+    /**
+     * @return name of the phase's byte count metric, I.E. "UploadBytes"
+     */
+    public String getBytesName() {
+        return metricName + "Bytes";
+    }
+}
@@ -0,0 +1,91 @@
+package com.bizrateinsights.metrics;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.Arrays;
+
+/**
+ * Aggregates the invocation records of a suite into p50/p95/max per phase, and the total bytes per phase. Durations
+ * are kept in one primitive array per phase, so memory stays at 8 bytes per phase per record.
+ */
+public class SuiteMetrics {
+
+    private final long[][] millis = new long[Phase.values().length][16];
+    private final long[] bytes = new long[Phase.values().length];
+    private int count;
+    private int coldStarts;
+
+    /**
+     * @param json = a record logged by {@link InvocationMetrics#toJson}
+     */
+    public void add(String json) {
+        JsonObject record = new JsonParser().parse(json).getAsJsonObject();
+        if (count == millis[0].length) {
+            for (int i = 0; i < millis.length; i++) {
+                millis[i] = Arrays.copyOf(millis[i], count * 2);
+            }
+        }
+        for (Phase phase : Phase.values()) {
+            JsonElement value = record.get(phase.getMillisName());
+            millis[phase.ordinal()][count] = value == null ? 0 : value.getAsLong();
+            JsonElement byteCount = record.get(phase.getBytesName());
+            if (byteCount != null) {
+                bytes[phase.ordinal()] += byteCount.getAsLong();
+            }
+        }
+        if (record.has("ColdStart") && record.get("ColdStart").getAsBoolean()) {
+            coldStarts++;
+        }
+        count++;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @param percentile = 0 to 100
+     * @return nearest-rank percentile of a phase's duration in millis
+     */
+    public long getPercentile(Phase phase, double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(millis[phase.ordinal()], count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * @return bytes of a phase across the suite
+     */
+    public long getTotalBytes(Phase phase) {
+        return bytes[phase.ordinal()];
+    }
+
+    /**
+     * @return one line per phase that took any time, I.E. "Test p50/p95/max: 1200/5400/9100 ms", and the browser log
+     * bytes kept out of the lambda's log
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("Invocations: ").append(count).append(", Cold Starts: ").append(coldStarts).append("\n");
+        for (Phase phase : Phase.values()) {
+            long max = getPercentile(phase, 100);
+            if (max == 0) {
+                continue;
+            }
+            report.append(phase.name()).append(" p50/p95/max: ")
+                    .append(getPercentile(phase, 50)).append("/")
+                    .append(getPercentile(phase, 95)).append("/")
+                    .append(max).append(" ms\n");
+        }
+        if (getTotalBytes(Phase.BROWSER_LOGS) > 0) {
+            report.append("Browser log bytes kept out of CloudWatch: ").append(getTotalBytes(Phase.BROWSER_LOGS)).append("\n");
+        }
+        return report.toString();
+    }
+}
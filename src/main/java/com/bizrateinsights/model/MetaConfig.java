@@ -2,6 +2,8 @@ package com.bizrateinsights.model;
 
 import org.aeonbits.owner.Config;
 
+import java.util.List;
+
 @Config.Sources("classpath:meta.properties")
 public interface MetaConfig extends Config{
 
@@ -17,8 +19,13 @@ public interface MetaConfig extends Config{
     @Key("chromedriver.local.path")
     String getChromedriverLocalPath();
 
-    @Key("chromedriver.remote.path")
-    String getChromedriverRemotePath();
+    @Key("binary.cache.dir")
+    @DefaultValue("/tmp/binary-cache")
+    String getBinaryCacheDir();
+
+    @Key("binary.bundle.gzip")
+    @DefaultValue("false")
+    Boolean getBinariesGzipped();
 
     @Key("scaled.testing.artifacts.bucket")
     String getScaledTestingArtifactsBucket();
@@ -26,12 +33,100 @@ public interface MetaConfig extends Config{
     @Key("sqs.name")
     String getSQSQueue();
 
+    @Key("dispatch.mode")
+    @DefaultValue("sqs")
+    String getDispatchMode();
+
+    @Key("lambda.function.name")
+    @DefaultValue("automation-archetype-lambda")
+    String getLambdaFunctionName();
+
+    @Key("lambda.function.qualifier")
+    @DefaultValue("dev")
+    String getLambdaFunctionQualifier();
+
+    @Key("lambda.dispatch.window")
+    @DefaultValue("100")
+    Integer getLambdaDispatchWindow();
+
+    @Key("sqs.dispatch.concurrency")
+    @DefaultValue("8")
+    Integer getSQSDispatchConcurrency();
+
+    @Key("sqs.dispatch.max.attempts")
+    @DefaultValue("3")
+    Integer getSQSDispatchMaxAttempts();
+
+    @Key("shard.target.seconds")
+    @DefaultValue("0")
+    Integer getShardTargetSeconds();
+
+    @Key("shard.default.test.seconds")
+    @DefaultValue("30")
+    Integer getShardDefaultTestSeconds();
+
+    @Key("shard.max.methods")
+    @DefaultValue("50")
+    Integer getShardMaxMethods();
+
+    @Key("timeout.safety.margin.seconds")
+    @DefaultValue("30")
+    Integer getTimeoutSafetyMarginSeconds();
+
+    @Key("execution.claims.enabled")
+    @DefaultValue("true")
+    Boolean getExecutionClaimsEnabled();
+
+    @Key("execution.lease.max.seconds")
+    @DefaultValue("900")
+    Integer getExecutionLeaseMaxSeconds();
+
+    @Key("cancel.check.seconds")
+    @DefaultValue("5")
+    Integer getCancelCheckSeconds();
+
     @Key("max.retry.count")
     Integer getMaxTestRetryCount();
 
+    @Key("retry.strategy")
+    @DefaultValue("immediate")
+    String getRetryStrategy();
+
+    @Key("retry.backoff.base.seconds")
+    @DefaultValue("30")
+    Integer getRetryBackoffBaseSeconds();
+
+    @Key("retry.backoff.max.seconds")
+    @DefaultValue("300")
+    Integer getRetryBackoffMaxSeconds();
+
+    @Key("retry.quarantine.after")
+    @DefaultValue("0")
+    Integer getRetryQuarantineAfter();
+
     @Key("slack.hook")
     String getSlackHook();
 
+    @Key("test.concurrency")
+    @DefaultValue("8")
+    Integer getTestConcurrency();
+
+    @Key("browser.memory.mb")
+    @DefaultValue("1024")
+    Integer getBrowserMemoryMb();
+
+    @Key("webdriver.pool.enabled")
+    @DefaultValue("false")
+    Boolean getWebdriverPoolEnabled();
+
+    @Key("webdriver.pool.max.uses")
+    @DefaultValue("20")
+    Integer getWebdriverPoolMaxUses();
+
+    @Key("browser.log.buffer.kb")
+    @DefaultValue("256")
+    Integer getBrowserLogBufferKb();
+
     @Key("implicit.wait.seconds")
     Integer defaultImplicitWaitSeconds();
 
@@ -41,5 +136,101 @@ public interface MetaConfig extends Config{
     @Key("new.tab.timeout.seconds")
     Integer defaultNewTabTimeoutSeconds();
 
+    @Key("webdriver.local.headless")
+    @DefaultValue("false")
+    Boolean getWebdriverLocalHeadless();
+
+    @Key("browser.profile")
+    @DefaultValue("default")
+    String getBrowserProfile();
+
+    @Key("browser.page.load.strategy")
+    @DefaultValue("")
+    String getBrowserPageLoadStrategy();
+
+    @Key("browser.blocked.hosts")
+    @DefaultValue("")
+    List<String> getBrowserBlockedHosts();
+
+    @Key("local.browser.sessions")
+    @DefaultValue("4")
+    Integer getLocalBrowserSessions();
+
+    @Key("local.results.dir")
+    @DefaultValue("target/local-results")
+    String getLocalResultsDir();
+
+    @Key("manifest.read.ahead")
+    @DefaultValue("16")
+    Integer getManifestReadAhead();
+
+    @Key("slack.channel")
+    @DefaultValue("#your-slack-channel-here")
+    String getSlackChannel();
+
+    @Key("notification.sink")
+    @DefaultValue("slack")
+    String getNotificationSink();
+
+    @Key("notification.file.path")
+    @DefaultValue("target/notifications.ndjson")
+    String getNotificationFilePath();
+
+    @Key("notification.queue.capacity")
+    @DefaultValue("100")
+    Integer getNotificationQueueCapacity();
+
+    @Key("notification.flush.timeout.seconds")
+    @DefaultValue("10")
+    Integer getNotificationFlushTimeoutSeconds();
+
+    @Key("notification.progress.percent")
+    @DefaultValue("10")
+    Integer getNotificationProgressPercent();
+
+    @Key("artifact.screenshot.scale")
+    @DefaultValue("1.0")
+    Double getArtifactScreenshotScale();
+
+    @Key("artifact.screenshot.format")
+    @DefaultValue("png")
+    String getArtifactScreenshotFormat();
+
+    @Key("artifact.upload.concurrency")
+    @DefaultValue("8")
+    Integer getArtifactUploadConcurrency();
+
+    @Key("schedule.concurrency")
+    @DefaultValue("100")
+    Integer getScheduleConcurrency();
+
+    @Key("schedule.fifo.lanes")
+    @DefaultValue("false")
+    Boolean getScheduleFifoLanes();
+
+    @Key("impact.include.unmapped")
+    @DefaultValue("true")
+    Boolean getImpactIncludeUnmapped();
+
+    @Key("history.window")
+    @DefaultValue("20")
+    Integer getHistoryWindow();
+
+    @Key("history.flaky.rate.percent")
+    @DefaultValue("5")
+    Integer getHistoryFlakyRatePercent();
+
+    @Key("history.flaky.report.size")
+    @DefaultValue("10")
+    Integer getHistoryFlakyReportSize();
+
+    @Key("completion.tracker")
+    @DefaultValue("dynamodb")
+    String getCompletionTracker();
+
+    @Key("completion.table")
+    @DefaultValue("automation-lambda-completions")
+    String getCompletionTable();
+
 }
 
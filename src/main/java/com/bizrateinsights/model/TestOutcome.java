@@ -0,0 +1,32 @@
+package com.bizrateinsights.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import org.junit.runner.notification.Failure;
+
+import java.util.Collections;
+
+import java.util.List;
+
+/**
+ * Result of a single test method within a junit run, so that a sharded run can report every method individually.
+ */
+@Value
+@AllArgsConstructor
+public class TestOutcome {
+
+    String method;
+    boolean successful;
+
+    /**
+     * True if the method was stopped, or never started, because the invocation ran out of time.
+     */
+    boolean timedOut;
+    List<Failure> failures;
+    long runTimeMillis;
+
+    public static TestOutcome timedOut(String method, long runTimeMillis) {
+        return new TestOutcome(method, false, true, Collections.emptyList(), runTimeMillis);
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.bizrateinsights.model;
+
+import com.bizrateinsights.Digests;
+import com.google.gson.annotations.SerializedName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+import org.junit.runner.notification.Failure;
+
+import java.util.List;
+
+/**
+ * Final result of a single test method, stored as the body of its result object and as one line of the suite manifest.
+ */
+@Value
+@Builder
+@AllArgsConstructor
+public class TestResultRecord {
+
+    /**
+     * SKIPPED tests were not run because their suite was cancelled.
+     */
+    public enum Status {
+        PASSED, FAILED, TIMED_OUT, SKIPPED
+    }
+
+    String runId;
+    String testId;
+    @SerializedName("class")
+    String testClass;
+    String method;
+
+    /**
+     * [BROWSER]/[DEVICE] of the test's matrix cell, null for tests without a matrix.
+     */
+    String matrixCell;
+
+    /**
+     * 0 for the first run of the test, incremented on every retry.
+     */
+    int attempt;
+    Status status;
+    long runTimeMillis;
+
+    /**
+     * Short hash of the first failure's stack trace, so identical failures can be grouped across tests. Null if the
+     * test passed or timed out.
+     */
+    String failureHash;
+    String failureMessage;
+
+    /**
+     * True if the test was not retried because it keeps failing across suite runs.
+     */
+    boolean quarantined;
+
+    /**
+     * Run time spent on retries of the test, including this attempt if it was a retry.
+     */
+    long retryCostMillis;
+
+    /**
+     * Url paths, page objects and components the test used, recorded for impacted runs. Null if nothing was recorded.
+     */
+    List<String> dependencies;
+
+    /**
+     * @param quarantined = true if the test was not retried because it keeps failing across suite runs
+     * @param dependencies = what the test used while it ran
+     */
+    public static TestResultRecord of(TestTrigger trigger, TestOutcome outcome, boolean quarantined, List<String> dependencies) {
+        Failure failure = outcome.getFailures().isEmpty() ? null : outcome.getFailures().get(0);
+        return TestResultRecord.builder()
+                .runId(trigger.getRunId())
+                .testId(trigger.getTestId())
+                .testClass(trigger.getTestClass())
+                .method(outcome.getMethod())
+                .matrixCell(trigger.getMatrixCell() == null ? null : trigger.getMatrixCell().toString())
+                .attempt(trigger.getRetryCount())
+                .status(outcome.isSuccessful() ? Status.PASSED : outcome.isTimedOut() ? Status.TIMED_OUT : Status.FAILED)
+                .runTimeMillis(outcome.getRunTimeMillis())
+                .failureHash(failure == null ? null : hash(failure.getTrace()))
+                .failureMessage(failure == null ? null : failure.getMessage())
+                .quarantined(quarantined)
+                .retryCostMillis(getRetryCostMillis(trigger, outcome))
+                .dependencies(dependencies == null || dependencies.isEmpty() ? null : dependencies)
+                .build();
+    }
+
+    /**
+     * @return record of a test that was not run because its suite was cancelled
+     */
+    public static TestResultRecord skipped(TestTrigger trigger, String method) {
+        return TestResultRecord.builder()
+                .runId(trigger.getRunId())
+                .testId(trigger.getTestId())
+                .testClass(trigger.getTestClass())
+                .method(method)
+                .matrixCell(trigger.getMatrixCell() == null ? null : trigger.getMatrixCell().toString())
+                .attempt(trigger.getRetryCount())
+                .status(Status.SKIPPED)
+                .retryCostMillis(trigger.getRetryCostMillis() == null ? 0 : trigger.getRetryCostMillis())
+                .build();
+    }
+
+    /**
+     * @param matrixCell = test matrix cell of the test, null for tests without a matrix
+     * @return [class]#[method], followed by @[matrix cell] for tests with a matrix. Each cell is tracked on its own
+     */
+    public static String getTestKey(String testClass, String method, String matrixCell) {
+        return testClass + "#" + method + (matrixCell == null ? "" : "@" + matrixCell);
+    }
+
+    public String getTestKey() {
+        return getTestKey(testClass, method, matrixCell);
+    }
+
+    /**
+     * @return run time spent on retries of the test, including the outcome's attempt if it was a retry
+     */
+    public static long getRetryCostMillis(TestTrigger trigger, TestOutcome outcome) {
+        long earlier = trigger.getRetryCostMillis() == null ? 0 : trigger.getRetryCostMillis();
+        return trigger.getRetryCount() > 0 ? earlier + outcome.getRunTimeMillis() : earlier;
+    }
+
+    /**
+     * @return first 12 hex characters of the SHA-1 of the text
+     */
+    private static String hash(String text) {
+        return Digests.sha1Hex(text).substring(0, 12);
+    }
+}
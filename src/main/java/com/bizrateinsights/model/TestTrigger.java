@@ -0,0 +1,101 @@
+package com.bizrateinsights.model;
+
+import com.bizrateinsights.selenium.Browsers;
+import com.bizrateinsights.selenium.Devices;
+import com.bizrateinsights.selenium.MatrixCell;
+import com.google.gson.annotations.SerializedName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Test runner json inserted into SQS during setup mode. A trigger either names a single "method", or a shard of
+ * "methods" of the same class that one invocation runs with a single junit runner, optionally in one browser and device
+ * combination of the test's matrix.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestTrigger {
+
+    @SerializedName("class")
+    private String testClass;
+    private String method;
+    private List<String> methods;
+    private String runId;
+    private String testId;
+    private Integer testCount;
+    private Integer retryCount;
+
+    /**
+     * Epoch millis before which a retry must not run, null to run right away.
+     */
+    private Long notBefore;
+
+    /**
+     * Run time spent on earlier retries of this test.
+     */
+    private Long retryCostMillis;
+
+    /**
+     * Expected run time of the trigger's tests, from the test history, set by setup mode.
+     */
+    private Long expectedMillis;
+
+    /**
+     * FIFO message group lane the scheduler assigned the trigger to, null for a message group of its own.
+     */
+    private Integer lane;
+
+    /**
+     * Epoch millis the suite was dispatched at, and the scheduler's predicted time until its last test completes.
+     */
+    private Long suiteStartedAt;
+    private Long predictedMakespanMillis;
+
+    /**
+     * Fail-fast threshold of the suite: it is cancelled once failFastFailures of its first failFastWithin results have
+     * failed. Null to never cancel.
+     */
+    private Integer failFastFailures;
+    private Integer failFastWithin;
+
+    /**
+     * Browser and device of the trigger's test matrix cell, both null for tests without a matrix.
+     */
+    private Browsers browser;
+    private Devices device;
+
+    /**
+     * @return the test matrix cell this trigger runs in, null for tests without a matrix
+     */
+    public MatrixCell getMatrixCell() {
+        return browser == null || device == null ? null : new MatrixCell(browser, device);
+    }
+
+    /**
+     * @return id of this attempt of the trigger's tests, derived from the suite run, class, methods, matrix cell and
+     * retry count. Every send and delivery of the same attempt has the same id, so it deduplicates both
+     */
+    public String getExecutionId() {
+        String key = runId + "/" + testClass + "#" + String.join(",", getTestMethods()) + "@" + getMatrixCell() + "~" + retryCount;
+        return String.valueOf(UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @return every test method this trigger runs
+     */
+    public List<String> getTestMethods() {
+        if (methods != null && !methods.isEmpty()) {
+            return methods;
+        }
+        return Collections.singletonList(method);
+    }
+}
@@ -0,0 +1,35 @@
+package com.bizrateinsights.notification;
+
+import com.google.gson.Gson;
+import lombok.SneakyThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+/**
+ * Appends every message to a local file as one json line, I.E. {"text": "..."}, as a stand-in for slack in local runs.
+ */
+public class FileNotificationSink implements NotificationSink {
+
+    private static final Gson GSON = new Gson();
+
+    private final Path path;
+
+    public FileNotificationSink(String path) {
+        this.path = Paths.get(path);
+    }
+
+    @Override
+    @SneakyThrows
+    public synchronized void send(String text) {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        String line = GSON.toJson(Collections.singletonMap("text", text)) + "\n";
+        Files.write(path, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,15 @@
+package com.bizrateinsights.notification;
+
+/**
+ * Destination of suite notifications, I.E. a slack channel.
+ */
+public interface NotificationSink {
+
+    /**
+     * Deliver a message, blocking until it has been accepted.
+     *
+     * @param text = message text, may contain quotes and newlines
+     */
+    void send(String text);
+
+}
@@ -0,0 +1,135 @@
+package com.bizrateinsights.notification;
+
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends notifications on a background thread, so reporting never blocks a test. Messages wait in a bounded queue and
+ * are dropped, with a warning, when it is full. The lambda freezes the container as soon as the handler returns, so
+ * {@link #flush} must be called before returning.
+ * <p>
+ * Updates sent with {@link #update} are coalesced per key: while an update for a key is still queued, newer updates
+ * for that key replace its text instead of being queued, so a slow sink only ever sees the latest one.
+ */
+@Log4j2
+public class Notifier {
+
+    private static final Logger LOG = LogManager.getLogger(Notifier.class);
+
+    private final NotificationSink sink;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, String> pendingUpdates = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private int pending;
+
+    /**
+     * @param queueCapacity = messages that can wait to be sent
+     */
+    public Notifier(NotificationSink sink, int queueCapacity) {
+        this.sink = sink;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+            Thread thread = new Thread(r, "notifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        //started with the notifier, not by the first send, so it does not inherit the thread locals of that test
+        this.executor.prestartAllCoreThreads();
+    }
+
+    /**
+     * Queue a message.
+     */
+    public void send(String text) {
+        submit(() -> deliver(text));
+    }
+
+    /**
+     * Queue an update, I.E. suite progress, replacing any update for the same key that has not been sent yet.
+     *
+     * @param key = what the update is about, I.E. the suite run id
+     */
+    public void update(String key, String text) {
+        if (pendingUpdates.put(key, text) == null) {
+            boolean queued = submit(() -> {
+                String latest = pendingUpdates.remove(key);
+                if (latest != null) {
+                    deliver(latest);
+                }
+            });
+            if (!queued) {
+                pendingUpdates.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Wait until every queued message has been sent.
+     *
+     * @return false if messages were still queued when the timeout ran out
+     */
+    public boolean flush(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (lock) {
+            try {
+                while (pending > 0) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        LOG.warn("{} NOTIFICATIONS NOT SENT BEFORE FLUSH TIMEOUT", pending);
+                        return false;
+                    }
+                    lock.wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false if the queue was full and the task was dropped
+     */
+    private boolean submit(Runnable task) {
+        synchronized (lock) {
+            pending++;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    done();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            LOG.warn("NOTIFICATION QUEUE FULL - DROPPING MESSAGE");
+            done();
+            return false;
+        }
+    }
+
+    private void deliver(String text) {
+        try {
+            sink.send(text);
+        } catch (RuntimeException e) {
+            LOG.error("Could not send notification", e); //notifications must never fail a test
+        }
+    }
+
+    private void done() {
+        synchronized (lock) {
+            pending--;
+            lock.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.bizrateinsights.notification;
+
+import com.google.gson.Gson;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Posts messages to a slack incoming webhook. One jax-rs client is created on the first message and reused for the
+ * life of the container, so cold starts that never notify don't pay for the client bootstrap.
+ */
+public class SlackWebhookSink implements NotificationSink {
+
+    private static final Gson GSON = new Gson();
+
+    private final String hookUrl;
+    private final String channel;
+    private final String username;
+    private final String iconEmoji;
+    private volatile Client client;
+
+    public SlackWebhookSink(String hookUrl, String channel, String username, String iconEmoji) {
+        this.hookUrl = hookUrl;
+        this.channel = channel;
+        this.username = username;
+        this.iconEmoji = iconEmoji;
+    }
+
+    private Client getClient() {
+        if (client == null) {
+            synchronized (this) {
+                if (client == null) {
+                    client = ClientBuilder.newClient();
+                }
+            }
+        }
+        return client;
+    }
+
+    @Override
+    public void send(String text) {
+        String payload = GSON.toJson(new SlackMessage(channel, username, text, iconEmoji));
+        Response response = getClient().target(hookUrl)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.json(payload));
+        try {
+            if (response.getStatus() >= 300) {
+                throw new IllegalStateException("Slack webhook returned " + response.getStatus());
+            }
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * Slack webhook payload - update this to fit the needs of your project.
+     */
+    @Value
+    @AllArgsConstructor
+    private static class SlackMessage {
+        String channel;
+        String username;
+        String text;
+        String icon_emoji;
+    }
+}
@@ -0,0 +1,142 @@
+package com.bizrateinsights.results;
+
+import com.bizrateinsights.artifacts.Artifact;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Results and artifacts as files under a local directory, using the same keys as the s3 buckets:
+ * [dir]/results/[runId]/[result key] and [dir]/artifacts/[runId]/[result key].png
+ */
+@Log4j2
+public class LocalResultStore implements ResultStore {
+
+    private static final Logger LOG = LogManager.getLogger(LocalResultStore.class);
+    /**
+     * Replacements compare and write under one lock, since every store of a local run shares the same directory.
+     */
+    private static final Object REPLACE_LOCK = new Object();
+
+    private final Path resultsDir;
+    private final Path artifactsDir;
+    private final Path tmpDir;
+
+    public LocalResultStore(String dir) {
+        this.resultsDir = new File(dir, "results").toPath();
+        this.artifactsDir = new File(dir, "artifacts").toPath();
+        this.tmpDir = new File(dir, "tmp").toPath();
+    }
+
+    @Override
+    @SneakyThrows
+    public void putResult(String key, String content) {
+        LOG.info("WRITING FILE WITH KEY: {}", key);
+        Path path = resultsDir.resolve(key);
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    @SneakyThrows
+    public boolean putResultIfAbsent(String key, String content) {
+        Path path = resultsDir.resolve(key);
+        Files.createDirectories(path.getParent());
+        Files.createDirectories(tmpDir);
+        //linking a complete file into place is atomic, so no reader sees the result half written
+        Path tmp = Files.createTempFile(tmpDir, "result", ".tmp");
+        try {
+            Files.write(tmp, content.getBytes(StandardCharsets.UTF_8));
+            Files.createLink(path, tmp);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } finally {
+            Files.delete(tmp);
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public boolean replaceResult(String key, String content, String version) {
+        if (version == null) {
+            return putResultIfAbsent(key, content);
+        }
+        Path path = resultsDir.resolve(key);
+        synchronized (REPLACE_LOCK) {
+            if (!Files.isRegularFile(path) || !VersionedResult.getDigest(read(path)).equals(version)) {
+                return false;
+            }
+            Files.createDirectories(tmpDir);
+            Path tmp = Files.createTempFile(tmpDir, "result", ".tmp");
+            Files.write(tmp, content.getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        }
+    }
+
+    @Override
+    public void putResult(String key, File file) {
+        copy(file, resultsDir.resolve(key));
+    }
+
+    @Override
+    @SneakyThrows
+    public void putArtifact(String key, Artifact artifact) {
+        Path path = artifactsDir.resolve(key);
+        Files.createDirectories(path.getParent());
+        Files.write(path, artifact.getBytes());
+    }
+
+    @SneakyThrows
+    private void copy(File file, Path path) {
+        Files.createDirectories(path.getParent());
+        Files.copy(file.toPath(), path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public String getResult(String key) {
+        return read(resultsDir.resolve(key));
+    }
+
+    @Override
+    public VersionedResult getVersionedResult(String key) {
+        Path path = resultsDir.resolve(key);
+        synchronized (REPLACE_LOCK) {
+            return Files.isRegularFile(path) ? VersionedResult.of(read(path)) : null;
+        }
+    }
+
+    @SneakyThrows
+    private static String read(Path path) {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    @SneakyThrows
+    public List<String> getResultKeys(String prefix) {
+        //keys contain at most one level of directories under a prefix, I.E. "[runId]/" or "history/failures.json"
+        Path dir = prefix.endsWith("/") ? resultsDir.resolve(prefix) : resultsDir.resolve(prefix).getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(Files::isRegularFile)
+                    .map(x -> resultsDir.relativize(x).toString().replace(File.separatorChar, '/'))
+                    .filter(x -> x.startsWith(prefix))
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.bizrateinsights.results;
+
+import com.bizrateinsights.model.TestResultRecord;
+import com.bizrateinsights.tracking.CompletionTracker;
+import com.google.gson.Gson;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Merges the result records of a suite into one newline delimited json manifest, stored at
+ * "manifests/[runId].ndjson" in the result store, and summarizes the suite on the way.
+ * <p>
+ * Records are read through a {@link ResultReader} and written to a temp file as they arrive, so at most readAhead
+ * bodies are held in memory regardless of suite size.
+ */
+@Log4j2
+public class ManifestAggregator {
+
+    private static final Logger LOG = LogManager.getLogger(ManifestAggregator.class);
+    public static final String MANIFEST_PREFIX = "manifests/";
+    private static final Gson GSON = new Gson();
+
+    private final ResultStore resultStore;
+    private final int readAhead;
+
+    /**
+     * @param readAhead = result bodies fetched concurrently
+     */
+    public ManifestAggregator(ResultStore resultStore, int readAhead) {
+        this.resultStore = resultStore;
+        this.readAhead = Math.max(1, readAhead);
+    }
+
+    public static String getManifestKey(String runId) {
+        return MANIFEST_PREFIX + runId + ".ndjson";
+    }
+
+    /**
+     * Build and store the manifest of a suite.
+     *
+     * @param runId = suite run UUID
+     * @param listener = also receives every result record, I.E. to update the failure history in the same pass
+     * @return summary of every result record in the manifest
+     */
+    public SuiteSummary aggregate(String runId, Consumer<TestResultRecord> listener) {
+        //a redelivered test may have stored a second result, only the first one listed is kept
+        Map<String, String> distinctKeys = new LinkedHashMap<>();
+        resultStore.getResultKeys(runId + "/").forEach(x -> distinctKeys.putIfAbsent(CompletionTracker.getCompletionKey(x), x));
+        Collection<String> keys = distinctKeys.values();
+        SuiteSummary summary = new SuiteSummary();
+        File manifest = null;
+
+        try {
+            manifest = File.createTempFile("manifest-" + runId, ".ndjson");
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(manifest.toPath()), StandardCharsets.UTF_8))) {
+                new ResultReader(resultStore, readAhead).read(keys, Long.MAX_VALUE, body -> {
+                    TestResultRecord record = GSON.fromJson(body, TestResultRecord.class);
+                    summary.add(record);
+                    listener.accept(record);
+                    try {
+                        GSON.toJson(record, writer); //re-serialized, so every line is compact
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            resultStore.putResult(getManifestKey(runId), manifest);
+            LOG.info("WROTE MANIFEST OF {} RESULTS FOR {}", summary.getTestCount(), runId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            FileUtils.deleteQuietly(manifest);
+        }
+        return summary;
+    }
+}
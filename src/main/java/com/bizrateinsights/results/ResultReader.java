@@ -0,0 +1,62 @@
+package com.bizrateinsights.results;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Reads result bodies with a bounded read-ahead and hands them over in key order, so reading many small objects costs
+ * about keys / readAhead round trips, and at most readAhead bodies are held in memory however many keys are read.
+ */
+public class ResultReader {
+
+    private final ResultStore resultStore;
+    private final int readAhead;
+
+    /**
+     * @param readAhead = result bodies fetched concurrently
+     */
+    public ResultReader(ResultStore resultStore, int readAhead) {
+        this.resultStore = resultStore;
+        this.readAhead = Math.max(1, readAhead);
+    }
+
+    /**
+     * @param keys = result keys to read
+     * @param deadline = epoch millis after which no more reads are started, Long.MAX_VALUE to read every key
+     * @param consumer = receives each body, in key order
+     * @return number of bodies handed over, fewer than the keys if the deadline passed
+     */
+    public int read(Iterable<String> keys, long deadline, Consumer<String> consumer) {
+        ExecutorService executor = Executors.newFixedThreadPool(readAhead);
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        Iterator<String> remaining = keys.iterator();
+        int read = 0;
+        try {
+            while (remaining.hasNext() || !pending.isEmpty()) {
+                while (remaining.hasNext() && pending.size() < readAhead && System.currentTimeMillis() < deadline) {
+                    String key = remaining.next();
+                    pending.add(executor.submit(() -> resultStore.getResult(key)));
+                }
+                if (pending.isEmpty()) {
+                    break; //out of time, the rest is not read
+                }
+                consumer.accept(pending.poll().get());
+                read++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading results", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to read a result", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return read;
+    }
+}
@@ -0,0 +1,72 @@
+package com.bizrateinsights.results;
+
+import com.bizrateinsights.artifacts.Artifact;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Where test results and failure artifacts of a suite run are kept. The lambda stores them in s3, a local suite run
+ * keeps them on disk.
+ */
+public interface ResultStore {
+
+    /**
+     * @param key = result key, I.E. "[runId]/[testId]~[method]~RetryCount:[n]~[success]"
+     * @param content = result body
+     */
+    void putResult(String key, String content);
+
+    /**
+     * Store a result only if nothing is stored under its key yet, atomically, so of several writers racing for the
+     * same key exactly one succeeds.
+     *
+     * @param key = result key, I.E. "claims/[runId]/[executionId]~[n]"
+     * @param content = result body
+     * @return false if a result was already stored under the key
+     */
+    boolean putResultIfAbsent(String key, String content);
+
+    /**
+     * Replace a result only if it is still stored as the given version, atomically, so of several writers updating
+     * the same result from the same version exactly one succeeds, and the others read it again.
+     *
+     * @param key = result key, I.E. "history/tests.json"
+     * @param content = new result body
+     * @param version = version the new body was derived from, see {@link #getVersionedResult}, null if it was derived
+     *                from no result at all
+     * @return false if the result was updated or created since that version was read
+     */
+    boolean replaceResult(String key, String content, String version);
+
+    /**
+     * @param key = result key
+     * @param file = local file holding the result body
+     */
+    void putResult(String key, File file);
+
+    /**
+     * @param key = artifact key, I.E. "[result key].png"
+     * @param artifact = captured artifact
+     */
+    void putArtifact(String key, Artifact artifact);
+
+    /**
+     * @param key = key a result was stored under
+     * @return the result body
+     */
+    String getResult(String key);
+
+    /**
+     * @param key = key a result may be stored under
+     * @return the result body with its current version, null if no result is stored under the key
+     */
+    VersionedResult getVersionedResult(String key);
+
+    /**
+     * @param prefix = key prefix, I.E. "[runId]/"
+     * @return every result key under the prefix
+     */
+    List<String> getResultKeys(String prefix);
+
+}
@@ -0,0 +1,70 @@
+package com.bizrateinsights.results;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.bizrateinsights.artifacts.Artifact;
+import com.bizrateinsights.clients.S3OperationsClient;
+
+import java.io.File;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Results in the results bucket, screenshots in the artifacts bucket.
+ */
+public class S3ResultStore implements ResultStore {
+
+    private final S3OperationsClient s3OperationsClient;
+    private final String resultsBucket;
+    private final String artifactsBucket;
+
+    public S3ResultStore(S3OperationsClient s3OperationsClient, String resultsBucket, String artifactsBucket) {
+        this.s3OperationsClient = s3OperationsClient;
+        this.resultsBucket = resultsBucket;
+        this.artifactsBucket = artifactsBucket;
+    }
+
+    @Override
+    public void putResult(String key, String content) {
+        s3OperationsClient.uploadTextFileToS3(resultsBucket, key, content);
+    }
+
+    @Override
+    public boolean putResultIfAbsent(String key, String content) {
+        return s3OperationsClient.uploadTextFileToS3IfAbsent(resultsBucket, key, content);
+    }
+
+    @Override
+    public boolean replaceResult(String key, String content, String version) {
+        if (version == null) {
+            return putResultIfAbsent(key, content);
+        }
+        return s3OperationsClient.replaceTextFileInS3(resultsBucket, key, content, version);
+    }
+
+    @Override
+    public void putResult(String key, File file) {
+        s3OperationsClient.uploadFileToS3(resultsBucket, key, file);
+    }
+
+    @Override
+    public void putArtifact(String key, Artifact artifact) {
+        s3OperationsClient.uploadBytesToS3(artifactsBucket, key, artifact.getBytes(), artifact.getContentType());
+    }
+
+    @Override
+    public String getResult(String key) {
+        return s3OperationsClient.getObjectAsString(resultsBucket, key);
+    }
+
+    @Override
+    public VersionedResult getVersionedResult(String key) {
+        return s3OperationsClient.getVersionedObjectAsString(resultsBucket, key);
+    }
+
+    @Override
+    public List<String> getResultKeys(String prefix) {
+        return s3OperationsClient.getObjectSummariesWithPrefix(resultsBucket, prefix).stream()
+                .map(S3ObjectSummary::getKey)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,126 @@
+package com.bizrateinsights.results;
+
+import com.bizrateinsights.model.TestResultRecord;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Counts and failure report of a suite, built in a single pass over its result records.
+ */
+public class SuiteSummary {
+
+    private int testCount;
+    private int failureCount;
+    private int timeoutCount;
+    private int retriedCount;
+    private int quarantinedCount;
+    private long retryCostMillis;
+    private int skippedCount;
+    private final Set<String> skippedInvocations = new HashSet<>();
+    private final StringBuilder failureReport = new StringBuilder();
+
+    /**
+     * Tests run and failed per test matrix cell, only for tests with a matrix
+     */
+    private final Map<String, int[]> matrixCounts = new TreeMap<>();
+
+    public void add(TestResultRecord record) {
+        if (record.getStatus() == TestResultRecord.Status.SKIPPED) {
+            skippedCount++;
+            skippedInvocations.add(record.getTestId());
+            return;
+        }
+        testCount++;
+        boolean failed = record.getStatus() != TestResultRecord.Status.PASSED;
+        if (failed) {
+            failureCount++;
+        }
+        if (record.getStatus() == TestResultRecord.Status.TIMED_OUT) {
+            timeoutCount++;
+        }
+        if (record.getAttempt() > 0) {
+            retriedCount++;
+        }
+        if (record.isQuarantined()) {
+            quarantinedCount++;
+        }
+        retryCostMillis += record.getRetryCostMillis();
+        if (record.getMatrixCell() != null) {
+            int[] counts = matrixCounts.computeIfAbsent(record.getMatrixCell(), x -> new int[2]);
+            counts[0]++;
+            counts[1] += failed ? 1 : 0;
+        }
+        if (failed || record.getAttempt() > 0) {
+            failureReport.append(record.getTestClass()).append('#').append(record.getMethod());
+            if (record.getMatrixCell() != null) {
+                failureReport.append(" [").append(record.getMatrixCell()).append(']');
+            }
+            failureReport.append(" - ").append(record.getStatus())
+                    .append(" - Attempt ").append(record.getAttempt());
+            if (record.getFailureHash() != null) {
+                failureReport.append(" - ").append(record.getFailureHash());
+            }
+            if (record.isQuarantined()) {
+                failureReport.append(" - QUARANTINED");
+            }
+            failureReport.append('\n');
+        }
+    }
+
+    public int getTestCount() {
+        return testCount;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    public int getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    public int getRetriedCount() {
+        return retriedCount;
+    }
+
+    public int getQuarantinedCount() {
+        return quarantinedCount;
+    }
+
+    public long getRetryCostMillis() {
+        return retryCostMillis;
+    }
+
+    /**
+     * @return tests that were not run because the suite was cancelled
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * @return triggers, I.E. invocations, that skipped their tests because the suite was cancelled
+     */
+    public int getSkippedInvocationCount() {
+        return skippedInvocations.size();
+    }
+
+    public String getReport() {
+        StringBuilder matrixReport = new StringBuilder();
+        for (Map.Entry<String, int[]> cell : matrixCounts.entrySet()) {
+            matrixReport.append(cell.getKey()).append(" - Tests Run: ").append(cell.getValue()[0])
+                    .append(", Tests Failed: ").append(cell.getValue()[1]).append('\n');
+        }
+        return "Tests Run: " + testCount + ", Tests Failed: " + failureCount + " (Timed Out: " + timeoutCount +
+                ", Quarantined: " + quarantinedCount + "), Tests Retried: " + retriedCount +
+                ", Retry Cost: " + retryCostMillis / 1000 + " invocation-seconds\n" +
+                (skippedCount == 0 ? "" : "Tests Skipped: " + skippedCount + " in " + skippedInvocations.size() +
+                        " cancelled invocations\n") +
+                matrixReport +
+                "[Class]#[Method] ([Matrix Cell]) - [Status] - [Attempt] - [Failure Hash]: \n" +
+                (failureReport.length() == 0 ? "No failures to report!\n" : failureReport);
+    }
+}
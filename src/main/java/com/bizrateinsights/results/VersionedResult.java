@@ -0,0 +1,31 @@
+package com.bizrateinsights.results;
+
+import com.bizrateinsights.Digests;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * A result body with the version it was stored as, to replace it only if nobody else has since, see
+ * {@link ResultStore#replaceResult(String, String, String)}.
+ */
+@Value
+@AllArgsConstructor
+public class VersionedResult {
+
+    String content;
+    /**
+     * I.E. the s3 ETag of the result object.
+     */
+    String version;
+
+    /**
+     * @return the result with its SHA-256 as version, for stores without versions of their own
+     */
+    public static VersionedResult of(String content) {
+        return new VersionedResult(content, getDigest(content));
+    }
+
+    static String getDigest(String content) {
+        return Digests.sha256Hex(content);
+    }
+}
@@ -0,0 +1,105 @@
+package com.bizrateinsights.retry;
+
+import com.bizrateinsights.history.HistoryStore;
+import com.bizrateinsights.model.TestResultRecord;
+import com.bizrateinsights.results.ResultStore;
+import com.google.gson.reflect.TypeToken;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consecutive failed suite runs per test, kept as a single json object in the result store. It is updated once per
+ * suite from the suite's final results, and read once per container, so tests that keep failing can be quarantined
+ * without any per-test lookups.
+ */
+@Log4j2
+public class FailureHistory {
+
+    private static final Logger LOG = LogManager.getLogger(FailureHistory.class);
+    public static final String HISTORY_KEY = "history/failures.json";
+    private static final Type HISTORY_TYPE = new TypeToken<Map<String, Integer>>() {}.getType();
+
+    private final HistoryStore<Map<String, Integer>> historyStore;
+    private final int quarantineAfter;
+    private volatile Map<String, Integer> consecutiveFailures;
+
+    /**
+     * @param quarantineAfter = consecutive failed suite runs after which a test is quarantined, 0 to never quarantine
+     */
+    public FailureHistory(ResultStore resultStore, int quarantineAfter) {
+        this.historyStore = new HistoryStore<>(resultStore, HISTORY_KEY, HISTORY_TYPE, HashMap::new);
+        this.quarantineAfter = quarantineAfter;
+    }
+
+    private Map<String, Integer> getConsecutiveFailures() {
+        if (consecutiveFailures == null) {
+            synchronized (this) {
+                if (consecutiveFailures == null) {
+                    try {
+                        consecutiveFailures = Collections.unmodifiableMap(historyStore.load());
+                    } catch (RuntimeException e) {
+                        LOG.warn("Could not load failure history, nothing is quarantined", e);
+                        consecutiveFailures = Collections.emptyMap();
+                    }
+                }
+            }
+        }
+        return consecutiveFailures;
+    }
+
+    public boolean isQuarantined(String testClass, String method, String matrixCell) {
+        if (quarantineAfter <= 0) {
+            return false;
+        }
+        return getConsecutiveFailures().getOrDefault(TestResultRecord.getTestKey(testClass, method, matrixCell), 0) >= quarantineAfter;
+    }
+
+    /**
+     * Start an update of the stored history with a suite's final results.
+     *
+     * @param runId = suite run UUID, whose results are only counted once
+     */
+    public Update update(String runId) {
+        return new Update(runId);
+    }
+
+    /**
+     * Accumulates a suite's results, I.E. while its manifest is built, and stores the history once at the end.
+     */
+    public class Update {
+
+        private final String runId;
+        private final List<TestResultRecord> records = new ArrayList<>();
+
+        private Update(String runId) {
+            this.runId = runId;
+        }
+
+        public void add(TestResultRecord record) {
+            if (record.getStatus() == TestResultRecord.Status.SKIPPED) {
+                return; //not run, the streak carries over to the next suite
+            }
+            records.add(record);
+        }
+
+        public void save() {
+            historyStore.apply(runId, history -> {
+                for (TestResultRecord record : records) {
+                    if (record.getStatus() == TestResultRecord.Status.PASSED) {
+                        history.remove(record.getTestKey());
+                    } else {
+                        history.merge(record.getTestKey(), 1, Integer::sum);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.bizrateinsights.retry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether and when a failed test is retried.
+ * <ul>
+ *     <li>IMMEDIATE - retry as soon as the test fails</li>
+ *     <li>BACKOFF - retry after base * 2^(retry - 1) seconds, capped at max, so retries don't land in the same load spike</li>
+ *     <li>WAVE - hold every first-pass retry until the first pass of the suite has finished, then retry them together</li>
+ * </ul>
+ * Quarantined tests are never retried.
+ */
+public class RetryPolicy {
+
+    public enum Strategy {
+        IMMEDIATE, BACKOFF, WAVE
+    }
+
+    private final Strategy strategy;
+    private final int maxRetries;
+    private final long baseDelaySeconds;
+    private final long maxDelaySeconds;
+
+    /**
+     * @param maxRetries = retries per test, 0 to never retry
+     * @param baseDelaySeconds = delay before the first retry with BACKOFF
+     * @param maxDelaySeconds = longest delay before any retry with BACKOFF
+     */
+    public RetryPolicy(Strategy strategy, int maxRetries, long baseDelaySeconds, long maxDelaySeconds) {
+        this.strategy = strategy;
+        this.maxRetries = maxRetries;
+        this.baseDelaySeconds = baseDelaySeconds;
+        this.maxDelaySeconds = maxDelaySeconds;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @param retryCount = retries already made for the test
+     * @param quarantined = true if the test's history shows it failing consistently
+     */
+    public boolean shouldRetry(int retryCount, boolean quarantined) {
+        return !quarantined && retryCount < maxRetries;
+    }
+
+    /**
+     * @param retryCount = retries already made for the test
+     * @return true if the retry must wait for the suite's retry wave
+     */
+    public boolean defersToWave(int retryCount) {
+        return strategy == Strategy.WAVE && retryCount == 0;
+    }
+
+    /**
+     * @param nextRetryCount = retry count of the retry being scheduled, starting at 1
+     * @return epoch millis before which the retry must not run, or null to run it right away
+     */
+    public Long getNotBefore(int nextRetryCount, long now) {
+        if (strategy != Strategy.BACKOFF) {
+            return null;
+        }
+        long delaySeconds = Math.min(maxDelaySeconds, baseDelaySeconds << Math.min(30, nextRetryCount - 1));
+        return now + TimeUnit.SECONDS.toMillis(delaySeconds);
+    }
+}
@@ -0,0 +1,144 @@
+package com.bizrateinsights.selenium;
+
+import com.bizrateinsights.WithBrowserProfile;
+import com.bizrateinsights.model.MetaConfig;
+import org.aeonbits.owner.ConfigCache;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Named browser performance profiles. A profile decides how long driver.get() waits for a page, which third-party hosts
+ * the browser may reach, whether images are loaded and how verbose the browser logs are.
+ * <p>
+ * Hosts are blocked with chromium's host resolver rules, so a blocked request fails fast with a DNS error instead of
+ * waiting on the network. Selenium 3 has no request interception, so blocking is by host name only.
+ */
+public enum BrowserProfile {
+
+    /**
+     * Waits for the load event, loads everything, verbose chromium logging. The behavior of earlier releases.
+     */
+    DEFAULT(PageLoadStrategy.NORMAL, false, false, true),
+
+    /**
+     * DEFAULT without verbose chromium logging.
+     */
+    QUIET(PageLoadStrategy.NORMAL, false, false, false),
+
+    /**
+     * Returns once the DOM is ready and blocks analytics, ads, web fonts and embedded media hosts.
+     */
+    LEAN(PageLoadStrategy.EAGER, true, false, false),
+
+    /**
+     * LEAN without images. For tests that only assert on markup and text.
+     */
+    MINIMAL(PageLoadStrategy.EAGER, true, true, false);
+
+    private static final MetaConfig CONFIG = ConfigCache.getOrCreate(MetaConfig.class);
+
+    /**
+     * Third-party hosts blocked by the LEAN and MINIMAL profiles, on top of browser.blocked.hosts
+     */
+    static final List<String> THIRD_PARTY_HOSTS = Collections.unmodifiableList(Arrays.asList(
+            "*.google-analytics.com", "*.googletagmanager.com", "*.googletagservices.com",
+            "*.doubleclick.net", "*.googlesyndication.com", "*.googleadservices.com",
+            "*.facebook.net", "*.facebook.com", "*.hotjar.com", "*.newrelic.com", "*.nr-data.net",
+            "fonts.googleapis.com", "fonts.gstatic.com", "use.typekit.net",
+            "*.youtube.com", "*.ytimg.com", "*.vimeo.com", "*.vimeocdn.com"));
+
+    private final PageLoadStrategy pageLoadStrategy;
+    private final boolean blocksThirdParty;
+    private final boolean imagesDisabled;
+    private final boolean verboseLogging;
+
+    BrowserProfile(PageLoadStrategy pageLoadStrategy, boolean blocksThirdParty, boolean imagesDisabled, boolean verboseLogging) {
+        this.pageLoadStrategy = pageLoadStrategy;
+        this.blocksThirdParty = blocksThirdParty;
+        this.imagesDisabled = imagesDisabled;
+        this.verboseLogging = verboseLogging;
+    }
+
+    /**
+     * @return the profile of the browser.profile property
+     */
+    public static BrowserProfile getDefault() {
+        return valueOf(CONFIG.getBrowserProfile().toUpperCase());
+    }
+
+    /**
+     * @param testClass = class of the running test
+     * @return the profile of the {@link WithBrowserProfile} annotation of the class, or the default profile
+     */
+    public static BrowserProfile forTestClass(Class<?> testClass) {
+        WithBrowserProfile annotation = testClass.getAnnotation(WithBrowserProfile.class);
+        return annotation == null ? getDefault() : annotation.value();
+    }
+
+    /**
+     * @return the page load strategy of this profile, unless browser.page.load.strategy overrides it
+     */
+    public PageLoadStrategy getPageLoadStrategy() {
+        String override = CONFIG.getBrowserPageLoadStrategy();
+        if (override.isEmpty()) {
+            return pageLoadStrategy;
+        }
+        PageLoadStrategy strategy = PageLoadStrategy.fromString(override.toLowerCase());
+        if (strategy == null) {
+            throw new IllegalArgumentException("Unknown browser.page.load.strategy: " + override);
+        }
+        return strategy;
+    }
+
+    public boolean isVerboseLogging() {
+        return verboseLogging;
+    }
+
+    /**
+     * @param extraBlockedHosts = hosts blocked on top of the built in third-party list, I.E. browser.blocked.hosts.
+     *                          Ignored by profiles that do not block third-party hosts
+     * @return chromium host resolver rules, in order. The first matching rule wins
+     */
+    public List<String> getHostResolverRules(List<String> extraBlockedHosts) {
+        List<String> rules = new ArrayList<>();
+        if (blocksThirdParty) {
+            for (String host : THIRD_PARTY_HOSTS) {
+                rules.add("MAP " + host + " ~NOTFOUND");
+            }
+            for (String host : extraBlockedHosts) {
+                rules.add("MAP " + host + " ~NOTFOUND");
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Apply the page load strategy, host blocking and image settings of this profile. Log verbosity only applies to
+     * the lambda chromium, so it is left to the caller.
+     *
+     * @param extraBlockedHosts = see {@link #getHostResolverRules}
+     * @param extraHostRules    = rules appended after the blocking rules, I.E. to map a test fixture host
+     */
+    public void apply(ChromeOptions chromeOptions, List<String> extraBlockedHosts, List<String> extraHostRules) {
+        chromeOptions.setPageLoadStrategy(getPageLoadStrategy());
+
+        List<String> rules = getHostResolverRules(extraBlockedHosts);
+        rules.addAll(extraHostRules);
+        if (!rules.isEmpty()) {
+            chromeOptions.addArguments("--host-resolver-rules=" + String.join(", ", rules));
+        }
+        if (blocksThirdParty) {
+            //embedded media that still loads does not start playing on its own
+            chromeOptions.addArguments("--autoplay-policy=user-gesture-required");
+            chromeOptions.addArguments("--mute-audio");
+        }
+        if (imagesDisabled) {
+            chromeOptions.addArguments("--blink-settings=imagesEnabled=false");
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.bizrateinsights.selenium;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.bizrateinsights.Digests;
+import com.bizrateinsights.metrics.InvocationMetrics;
+import com.bizrateinsights.metrics.Phase;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Owns the lambda /tmp directory. Browser binaries live in a protected cache directory that survives warm
+ * invocations, while the per-test browser state is wiped between tests. Every browser session gets its own profile
+ * directory, so several sessions can run side by side.
+ * <p>
+ * Cached binaries are validated against the S3 ETag they were downloaded from and the SHA-256 recorded at download
+ * time. Once validated, a binary is trusted for the rest of the container's life without further S3 calls.
+ */
+@Log4j2
+public class LambdaTmpManager {
+
+    public static final String TMP_DIR = "/tmp";
+    public static final String BROWSER_SESSIONS_DIR = TMP_DIR + "/browser-sessions";
+
+    public static final String CHROMEDRIVER = "chromedriver";
+    public static final String HEADLESS_CHROMIUM = "headless-chromium";
+
+    private static final Logger LOG = LogManager.getLogger(LambdaTmpManager.class);
+    private static final List<String> BINARIES = Arrays.asList(CHROMEDRIVER, HEADLESS_CHROMIUM);
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String METADATA_SUFFIX = ".cache";
+    private static final String PARTIAL_SUFFIX = ".part";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AmazonS3 s3;
+    private final String bucketName;
+    private final Path cacheDir;
+    private final boolean gzipBundle;
+    private final Set<String> validatedBinaries = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param s3 = client for the binaries bucket
+     * @param bucketName = bucket holding chromedriver and headless-chromium
+     * @param cacheDir = protected cache directory under /tmp
+     * @param gzipBundle = true if the binaries are stored gzip compressed as "[name].gz"
+     */
+    public LambdaTmpManager(AmazonS3 s3, String bucketName, String cacheDir, boolean gzipBundle) {
+        this.s3 = s3;
+        this.bucketName = bucketName;
+        this.cacheDir = Paths.get(cacheDir);
+        this.gzipBundle = gzipBundle;
+    }
+
+    /**
+     * @return a new directory for one browser session's profile, data path and disk cache
+     */
+    public static String newBrowserSessionDir() {
+        return BROWSER_SESSIONS_DIR + "/" + UUID.randomUUID();
+    }
+
+    public String getBinaryPath(String binary) {
+        return cacheDir.resolve(binary).toString();
+    }
+
+    /**
+     * Make sure every browser binary in the cache matches S3, downloading the stale or missing ones in parallel.
+     */
+    public synchronized void ensureBinaries() {
+        List<String> pending = new ArrayList<>();
+        for (String binary : BINARIES) {
+            if (!validatedBinaries.contains(binary)) {
+                pending.add(binary);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(pending.size());
+        try {
+            List<Future<?>> downloads = new ArrayList<>();
+            for (String binary : pending) {
+                downloads.add(executor.submit(() -> {
+                    ensureBinary(binary);
+                    return null;
+                }));
+            }
+            for (Future<?> download : downloads) {
+                download.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while preparing browser binaries", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to prepare browser binaries", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Wipe browser profiles and disk caches left by previous tests. The binary cache is never touched.
+     *
+     * @param keepBrowserProfile = true while pooled browser sessions are still using the profile directories
+     */
+    public static void cleanTestFiles(boolean keepBrowserProfile) {
+        if (!keepBrowserProfile) {
+            FileUtils.deleteQuietly(new File(BROWSER_SESSIONS_DIR));
+        }
+    }
+
+    private void ensureBinary(String binary) throws IOException {
+        Path target = cacheDir.resolve(binary);
+        Path metadataFile = cacheDir.resolve(binary + METADATA_SUFFIX);
+        String key = gzipBundle ? binary + GZIP_SUFFIX : binary;
+        String cachedEtag = readValidEtag(target, metadataFile);
+
+        GetObjectRequest request = new GetObjectRequest(bucketName, key);
+        if (cachedEtag != null) {
+            request.withNonmatchingETagConstraint(cachedEtag);
+        }
+
+        //null when the ETag constraint matched, I.E. the cached copy is current
+        S3Object s3Object = s3.getObject(request);
+        if (s3Object == null) {
+            LOG.info("USING CACHED - {}", binary);
+            validatedBinaries.add(binary);
+            return;
+        }
+
+        LOG.info("DOWNLOADING - {}", key);
+        Files.createDirectories(cacheDir);
+        Path partial = cacheDir.resolve(binary + PARTIAL_SUFFIX);
+        MessageDigest digest = Digests.newSha256();
+        try (S3Object object = s3Object;
+             InputStream content = gzipBundle
+                     ? new GZIPInputStream(object.getObjectContent(), BUFFER_SIZE)
+                     : object.getObjectContent();
+             InputStream in = new DigestInputStream(content, digest)) {
+            InvocationMetrics.recordBytes(Phase.BINARIES, Files.copy(in, partial, StandardCopyOption.REPLACE_EXISTING));
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        target.toFile().setExecutable(true, false);
+
+        String metadata = s3Object.getObjectMetadata().getETag() + "\n" + Digests.toHex(digest.digest()) + "\n";
+        Files.write(metadataFile, metadata.getBytes(StandardCharsets.UTF_8));
+        validatedBinaries.add(binary);
+    }
+
+    /**
+     * @return the ETag the cached binary was downloaded from, or null if the binary is missing or its checksum no
+     * longer matches the one recorded at download time
+     */
+    private String readValidEtag(Path target, Path metadataFile) throws IOException {
+        if (!Files.exists(target) || !Files.exists(metadataFile)) {
+            return null;
+        }
+
+        String etag;
+        String checksum;
+        try (BufferedReader reader = Files.newBufferedReader(metadataFile, StandardCharsets.UTF_8)) {
+            etag = reader.readLine();
+            checksum = reader.readLine();
+        }
+        if (etag == null || checksum == null) {
+            return null;
+        }
+
+        MessageDigest digest = Digests.newSha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(target), digest)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (in.read(buffer) != -1) {
+                //reading is enough to update the digest
+            }
+        }
+        return checksum.equals(Digests.toHex(digest.digest())) ? etag : null;
+    }
+}
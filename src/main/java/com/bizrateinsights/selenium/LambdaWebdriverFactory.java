@@ -1,53 +1,78 @@
 package com.bizrateinsights.selenium;
 
-import com.amazonaws.regions.Regions;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
-import com.amazonaws.services.s3.model.GetObjectRequest;
-import com.amazonaws.services.s3.model.S3Object;
+import com.bizrateinsights.clients.AwsClients;
+import com.bizrateinsights.metrics.InvocationMetrics;
+import com.bizrateinsights.metrics.Phase;
 import com.bizrateinsights.model.MetaConfig;
 import lombok.AllArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
-import org.aeonbits.owner.ConfigFactory;
+import org.aeonbits.owner.ConfigCache;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 @Log4j2
 @AllArgsConstructor
 public class LambdaWebdriverFactory {
 
-    public static final int DEFAULT_IDLE_TIMEOUT = 120;
-    private static final MetaConfig CONFIG = ConfigFactory.create(MetaConfig.class);
+    private static final MetaConfig CONFIG = ConfigCache.getOrCreate(MetaConfig.class);
     private static final Logger LOG = LogManager.getLogger(LambdaWebdriverFactory.class);
+    private static final WebDriverPool POOL = new WebDriverPool(CONFIG.getWebdriverPoolMaxUses());
 
     /**
-     * Download a file if it exists, and do nothing if already present.
-     * This is because AWS lambda has a tendency to share the temp directory between invocations.
+     * Sessions handed out and not yet released, keyed by the thread running the test, so a watchdog can stop them.
      */
-    private void downloadNonExistingFile(S3Object s3Object, String filePath) throws IOException {
-        if (!Paths.get("/tmp/" + filePath).toFile().exists()) {
-            LOG.info("DOWNLOADING - {}", filePath);
-            InputStream in = s3Object.getObjectContent();
-            Files.copy(in, Paths.get("/tmp/" + filePath));
-            File file = new File("/tmp/" + s3Object.getKey());
-            file.setExecutable(true, false);
+    private static final Map<Thread, Set<WebDriver>> ACTIVE_WEBDRIVERS = new ConcurrentHashMap<>();
+
+    /**
+     * Log buffer of every live session. Weak keys, so sessions quit by the pool take their buffer with them.
+     */
+    private static final Map<WebDriver, LogRingBuffer> LOG_BUFFERS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Binary cache for remote runs. Created once per container, on the first remote webdriver request.
+     */
+    private static LambdaTmpManager tmpManager;
+
+    /**
+     * Performance profile of every browser this factory launches
+     */
+    private final BrowserProfile profile;
+
+    /**
+     * Launch browsers with the profile of the browser.profile property
+     */
+    public LambdaWebdriverFactory() {
+        this(BrowserProfile.getDefault());
+    }
+
+    private static synchronized LambdaTmpManager getTmpManager() {
+        if (tmpManager == null) {
+            tmpManager = new LambdaTmpManager(AwsClients.getS3(), CONFIG.getScaledTestingArtifactsBucket(),
+                    CONFIG.getBinaryCacheDir(), CONFIG.getBinariesGzipped());
         }
+        return tmpManager;
     }
 
     private void setChromedriverPath() {
         if(!CONFIG.getWebdriverIsLocal()) {
-            System.setProperty("webdriver.chrome.driver", CONFIG.getChromedriverRemotePath());
+            System.setProperty("webdriver.chrome.driver", getTmpManager().getBinaryPath(LambdaTmpManager.CHROMEDRIVER));
         } else {
             System.setProperty("webdriver.chrome.driver", CONFIG.getChromedriverLocalPath());
         }
@@ -55,40 +80,63 @@ public class LambdaWebdriverFactory {
     }
 
     private void setupBinaries() {
-        final AmazonS3 s3 = AmazonS3ClientBuilder.standard().withRegion(Regions.DEFAULT_REGION).build();
-        final String bucketName = CONFIG.getScaledTestingArtifactsBucket();
-
+        long start = System.nanoTime();
         try {
-            downloadNonExistingFile(s3.getObject(new GetObjectRequest(bucketName, "chromedriver")), "chromedriver");
-            downloadNonExistingFile(s3.getObject(new GetObjectRequest(bucketName, "headless-chromium")), "headless-chromium");
+            getTmpManager().ensureBinaries();
+            InvocationMetrics.record(Phase.BINARIES, start);
         } catch (Exception e) {
             LOG.info(e);
             throw new RuntimeException(e);
         }
     }
 
+    private static List<String> getBlockedHosts() {
+        List<String> hosts = new ArrayList<>();
+        for (String host : CONFIG.getBrowserBlockedHosts()) {
+            if (!host.trim().isEmpty()) {
+                hosts.add(host.trim());
+            }
+        }
+        return hosts;
+    }
+
     private WebDriver getChromeBrowser(Devices device) {
         ChromeOptions chromeOptions = new ChromeOptions();
 
         if(!CONFIG.getWebdriverIsLocal()){
-            chromeOptions.setBinary("/tmp/headless-chromium");
+            chromeOptions.setBinary(getTmpManager().getBinaryPath(LambdaTmpManager.HEADLESS_CHROMIUM));
             chromeOptions.addArguments("--headless");
             chromeOptions.addArguments("--disable-dev-shm-usage");
             chromeOptions.addArguments("--no-sandbox");
             chromeOptions.addArguments("--disable-gpu");
-            chromeOptions.addArguments("--user-data-dir=/tmp/user-data");
+            String sessionDir = LambdaTmpManager.newBrowserSessionDir();
+            chromeOptions.addArguments("--user-data-dir=" + sessionDir + "/user-data");
             chromeOptions.addArguments("--hide-scrollbars");
-            chromeOptions.addArguments("--enable-logging");
-            chromeOptions.addArguments("--log-level=0");
-            chromeOptions.addArguments("--v=99");
+            if (profile.isVerboseLogging()) {
+                chromeOptions.addArguments("--enable-logging=stderr");
+                chromeOptions.addArguments("--log-level=0");
+                chromeOptions.addArguments("--v=99");
+            } else {
+                chromeOptions.addArguments("--log-level=3");
+            }
             chromeOptions.addArguments("--single-process");
-            chromeOptions.addArguments("--data-path=/tmp/data-path");
+            chromeOptions.addArguments("--data-path=" + sessionDir + "/data-path");
             chromeOptions.addArguments("--ignore-certificate-errors");
-            chromeOptions.addArguments("--homedir=/tmp");
-            chromeOptions.addArguments("--disk-cache-dir=/tmp/cache-dir");
+            chromeOptions.addArguments("--homedir=" + LambdaTmpManager.TMP_DIR);
+            chromeOptions.addArguments("--disk-cache-dir=" + sessionDir + "/cache-dir");
             chromeOptions.addArguments("--user-agent=Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/61.0.3163.100 Safari/537.36");
+        } else if (CONFIG.getWebdriverLocalHeadless()) {
+            chromeOptions.addArguments("--headless");
+            chromeOptions.addArguments("--disable-gpu");
         }
 
+        profile.apply(chromeOptions, getBlockedHosts(), Collections.emptyList());
+
+        //browser console logs are uploaded with the screenshot of a failed test
+        LoggingPreferences loggingPreferences = new LoggingPreferences();
+        loggingPreferences.enable(LogType.BROWSER, Level.ALL);
+        chromeOptions.setCapability("goog:loggingPrefs", loggingPreferences);
+
         switch (device) {
             case DESKTOP:
                 chromeOptions.addArguments("--window-size=5000,2000");
@@ -101,7 +149,16 @@ public class LambdaWebdriverFactory {
 
         }
 
-        return new ChromeDriver(chromeOptions);
+        //chromedriver and chromium output goes to the session's log buffer instead of stdout
+        LogRingBuffer logBuffer = new LogRingBuffer(CONFIG.getBrowserLogBufferKb() * 1024);
+        ChromeDriverService service = new ChromeDriverService.Builder()
+                .usingAnyFreePort()
+                .withVerbose(profile.isVerboseLogging())
+                .build();
+        service.sendOutputTo(logBuffer);
+        WebDriver webDriver = new ChromeDriver(service, chromeOptions);
+        LOG_BUFFERS.put(webDriver, logBuffer);
+        return webDriver;
     }
 
     /**
@@ -120,19 +177,95 @@ public class LambdaWebdriverFactory {
     }
 
     @SneakyThrows
-    public WebDriver getWebdriver(Browsers browser, Devices device) {
+    private WebDriver launchWebdriver(Browsers browser, Devices device) {
         if(!CONFIG.getWebdriverIsLocal()) {
             setupBinaries();
         }
         setChromedriverPath();
 
+        long start = System.nanoTime();
         final WebDriver webDriver = getCustomWebdriver(browser, device);
+        InvocationMetrics.record(Phase.BROWSER_LAUNCH, start);
         //set default timeout for finding elements on a page
-        webDriver.manage().timeouts().implicitlyWait(DEFAULT_IDLE_TIMEOUT, TimeUnit.SECONDS);
+        webDriver.manage().timeouts().implicitlyWait(CONFIG.defaultImplicitWaitSeconds(), TimeUnit.SECONDS);
+
+        return webDriver;
+    }
 
+    /**
+     * Get a webdriver for a test. With webdriver.pool.enabled, a reset session left by a previous test in the same
+     * container is reused when possible.
+     */
+    public WebDriver getWebdriver(Browsers browser, Devices device) {
+        WebDriver webDriver = CONFIG.getWebdriverPoolEnabled()
+                ? POOL.acquire(browser, device, profile, () -> launchWebdriver(browser, device))
+                : launchWebdriver(browser, device);
+        ACTIVE_WEBDRIVERS.computeIfAbsent(Thread.currentThread(), x -> ConcurrentHashMap.newKeySet()).add(webDriver);
+        LogRingBuffer logBuffer = LOG_BUFFERS.get(webDriver);
+        if (logBuffer != null) {
+            logBuffer.clear(); //launch output, or the reset after the previous test
+        }
         return webDriver;
     }
 
+    /**
+     * @return the log buffer of a session handed out by {@link #getWebdriver}, null for any other driver
+     */
+    public static LogRingBuffer getLogBuffer(WebDriver webDriver) {
+        return LOG_BUFFERS.get(webDriver);
+    }
+
+    /**
+     * Give a webdriver back after a test, either to the session pool or by quitting it. The logs the test left in the
+     * session's buffer are dropped, and counted as browser log bytes kept out of the lambda's log.
+     */
+    public void releaseWebdriver(WebDriver webDriver) {
+        //threads are dropped with their last session, so finished test threads are not kept reachable
+        ACTIVE_WEBDRIVERS.computeIfPresent(Thread.currentThread(), (x, active) -> {
+            active.remove(webDriver);
+            return active.isEmpty() ? null : active;
+        });
+        LogRingBuffer logBuffer = LOG_BUFFERS.get(webDriver);
+        if (logBuffer != null) {
+            InvocationMetrics.recordBytes(Phase.BROWSER_LOGS, logBuffer.clear());
+        }
+        if (!POOL.release(webDriver)) {
+            LOG_BUFFERS.remove(webDriver);
+            webDriver.quit();
+        }
+    }
+
+    /**
+     * Quit every session a thread has not released, I.E. because its test ran out of time. Pooled sessions are evicted
+     * from the pool, so it no longer counts them as alive.
+     *
+     * @param reason = why the sessions are quit, for the pool's log
+     */
+    public static void quitWebdrivers(Thread thread, String reason) {
+        Set<WebDriver> active = ACTIVE_WEBDRIVERS.remove(thread);
+        if (active == null) {
+            return;
+        }
+        for (WebDriver webDriver : active) {
+            LOG_BUFFERS.remove(webDriver);
+            if (POOL.evict(webDriver, reason)) {
+                continue;
+            }
+            try {
+                webDriver.quit();
+            } catch (Exception e) {
+                //eat exception. The session may already be gone.
+            }
+        }
+    }
+
+    /**
+     * @return true if pooled browser sessions are still alive, so their profile directories must not be wiped
+     */
+    public static boolean hasPooledSessions() {
+        return POOL.hasSessions();
+    }
+
     public WebDriver getDefaultWebdriver() {
         return getWebdriver(Browsers.CHROMIUM, Devices.MOBILE);
     }
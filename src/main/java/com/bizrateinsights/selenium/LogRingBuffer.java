@@ -0,0 +1,105 @@
+package com.bizrateinsights.selenium;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The last {@code capacity} bytes of a browser session's logs - chromedriver and chromium output, plus the console log
+ * of a failed test - held in a single array allocated with the session. Writes copy into the array and overwrite the
+ * oldest bytes once it is full, so a chatty browser costs no more memory than a quiet one, and nothing reaches stdout.
+ * <p>
+ * The buffer is cleared when its session is handed to a test, so it only ever holds the logs of that test.
+ */
+public class LogRingBuffer extends OutputStream {
+
+    private final byte[] buffer;
+    private int position;
+    private long written;
+
+    /**
+     * @param capacity = bytes kept, older bytes are dropped
+     */
+    public LogRingBuffer(int capacity) {
+        this.buffer = new byte[Math.max(1, capacity)];
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        buffer[position] = (byte) b;
+        position = (position + 1) % buffer.length;
+        written++;
+    }
+
+    @Override
+    public synchronized void write(byte[] bytes, int offset, int length) {
+        written += length;
+        if (length >= buffer.length) {
+            System.arraycopy(bytes, offset + length - buffer.length, buffer, 0, buffer.length);
+            position = 0;
+            return;
+        }
+        int first = Math.min(length, buffer.length - position);
+        System.arraycopy(bytes, offset, buffer, position, first);
+        System.arraycopy(bytes, offset + first, buffer, 0, length - first);
+        position = (position + length) % buffer.length;
+    }
+
+    /**
+     * @param line = appended with a trailing newline, I.E. a console log entry
+     */
+    public void appendLine(String line) {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @return bytes written since the buffer was last cleared, including dropped ones
+     */
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    /**
+     * @return bytes written since the buffer was last cleared that no longer fit
+     */
+    public synchronized long getDropped() {
+        return Math.max(0, written - buffer.length);
+    }
+
+    /**
+     * @return the kept bytes gzipped, oldest first, behind a line counting the dropped ones. Null if nothing was written
+     */
+    public synchronized byte[] toGzip() throws IOException {
+        if (written == 0) {
+            return null;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream((int) Math.min(written, buffer.length) / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            if (written > buffer.length) {
+                gzip.write(("[" + getDropped() + " earlier bytes dropped]\n").getBytes(StandardCharsets.UTF_8));
+            }
+            if (written >= buffer.length) {
+                gzip.write(buffer, position, buffer.length - position);
+                gzip.write(buffer, 0, position);
+            } else {
+                gzip.write(buffer, 0, position);
+            }
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Drop everything, I.E. when the test using the session passed.
+     *
+     * @return bytes written since the buffer was last cleared
+     */
+    public synchronized long clear() {
+        long cleared = written;
+        written = 0;
+        position = 0;
+        return cleared;
+    }
+}
@@ -0,0 +1,51 @@
+package com.bizrateinsights.selenium;
+
+import lombok.Value;
+
+/**
+ * One browser and device combination of a test matrix. The cell of the running trigger is bound to the thread running
+ * it, and inherited by the thread running its tests, so the test can launch the matching browser.
+ */
+@Value
+public class MatrixCell {
+
+    private static final String SEPARATOR = "/";
+    private static final InheritableThreadLocal<MatrixCell> CURRENT = new InheritableThreadLocal<>();
+
+    Browsers browser;
+    Devices device;
+
+    /**
+     * @param cell = [BROWSER]/[DEVICE], I.E. CHROMIUM/MOBILE
+     */
+    public static MatrixCell parse(String cell) {
+        String[] parts = cell.trim().toUpperCase().split(SEPARATOR);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Matrix cells look like CHROMIUM/MOBILE, got: " + cell);
+        }
+        return new MatrixCell(Browsers.valueOf(parts[0]), Devices.valueOf(parts[1]));
+    }
+
+    /**
+     * @return the cell of the trigger running on this thread, null outside a matrix
+     */
+    public static MatrixCell current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @param cell = cell of the trigger about to run, null to clear it
+     */
+    public static void bind(MatrixCell cell) {
+        if (cell == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(cell);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return browser + SEPARATOR + device;
+    }
+}
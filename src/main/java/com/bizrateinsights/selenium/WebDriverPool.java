@@ -0,0 +1,196 @@
+package com.bizrateinsights.selenium;
+
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.html5.WebStorage;
+
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps browser sessions alive between tests in a warm lambda container, keyed by browser, device and profile.
+ * <p>
+ * A released session is reset (cookies and storage of the current origin cleared, navigated to about:blank, window
+ * restored to its launch size) and health checked before it is handed to the next test. Sessions are quit after
+ * {@code maxUses} tests or on any reset or health check failure. Cookies set on origins other than the last one
+ * visited survive the reset, so only opt in for suites whose tests do not depend on a pristine cookie jar.
+ */
+@Log4j2
+public class WebDriverPool {
+
+    private static final Logger LOG = LogManager.getLogger(WebDriverPool.class);
+
+    private final int maxUses;
+    private final Map<String, Deque<PooledSession>> idleSessions = new ConcurrentHashMap<>();
+    private final Map<WebDriver, PooledSession> leasedSessions = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private final AtomicLong launches = new AtomicLong();
+    private final AtomicLong reuses = new AtomicLong();
+    private final AtomicLong recycles = new AtomicLong();
+    private final AtomicLong launchNanos = new AtomicLong();
+
+    public WebDriverPool(int maxUses) {
+        this.maxUses = maxUses;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::quitAll));
+    }
+
+    /**
+     * Hand out a healthy idle session for the browser, device and profile, launching a new one if there is none.
+     *
+     * @param launcher = launches a new session when no idle one can be reused
+     */
+    public WebDriver acquire(Browsers browser, Devices device, BrowserProfile profile, Supplier<WebDriver> launcher) {
+        String key = browser + ":" + device + ":" + profile;
+        Deque<PooledSession> idle = idleSessions.computeIfAbsent(key, x -> new ConcurrentLinkedDeque<>());
+
+        PooledSession session;
+        while ((session = idle.pollFirst()) != null) {
+            if (isHealthy(session.driver)) {
+                session.uses++;
+                reuses.incrementAndGet();
+                leasedSessions.put(session.driver, session);
+                return session.driver;
+            }
+            recycle(session, "failed health check");
+        }
+
+        long start = System.nanoTime();
+        WebDriver driver = launcher.get();
+        launchNanos.addAndGet(System.nanoTime() - start);
+        launches.incrementAndGet();
+
+        session = new PooledSession(key, driver, driver.manage().window().getSize());
+        leasedSessions.put(driver, session);
+        return driver;
+    }
+
+    /**
+     * Return a session after a test. It is reset and kept for the next test unless it reached its use limit.
+     *
+     * @return true if the driver was handed to this pool by {@link #acquire}
+     */
+    public boolean release(WebDriver driver) {
+        PooledSession session = leasedSessions.remove(driver);
+        if (session == null) {
+            return false;
+        }
+
+        if (session.uses >= maxUses) {
+            recycle(session, "reached " + maxUses + " uses");
+        } else if (!reset(session)) {
+            recycle(session, "failed reset");
+        } else {
+            idleSessions.get(session.key).offerFirst(session);
+        }
+        logMetrics();
+        return true;
+    }
+
+    /**
+     * Quit a leased session instead of taking it back, I.E. because the test using it ran out of time.
+     *
+     * @return true if the driver was handed to this pool by {@link #acquire}
+     */
+    public boolean evict(WebDriver driver, String reason) {
+        PooledSession session = leasedSessions.remove(driver);
+        if (session == null) {
+            return false;
+        }
+        recycle(session, reason);
+        logMetrics();
+        return true;
+    }
+
+    public boolean hasSessions() {
+        return !leasedSessions.isEmpty() || idleSessions.values().stream().anyMatch(x -> !x.isEmpty());
+    }
+
+    /**
+     * @return share of acquisitions that reused an existing session
+     */
+    public double getReuseRate() {
+        long acquisitions = launches.get() + reuses.get();
+        return acquisitions == 0 ? 0 : (double) reuses.get() / acquisitions;
+    }
+
+    public double getAverageLaunchMillis() {
+        long launched = launches.get();
+        return launched == 0 ? 0 : launchNanos.get() / 1_000_000.0 / launched;
+    }
+
+    public void quitAll() {
+        for (Deque<PooledSession> idle : idleSessions.values()) {
+            PooledSession session;
+            while ((session = idle.pollFirst()) != null) {
+                quitQuietly(session.driver);
+            }
+        }
+    }
+
+    private boolean reset(PooledSession session) {
+        try {
+            WebDriver driver = session.driver;
+            driver.manage().deleteAllCookies();
+            if (driver instanceof WebStorage) {
+                ((WebStorage) driver).getLocalStorage().clear();
+                ((WebStorage) driver).getSessionStorage().clear();
+            }
+            driver.get("about:blank");
+            driver.manage().window().setSize(session.windowSize);
+            return true;
+        } catch (Exception e) {
+            LOG.info("Could not reset pooled webdriver: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isHealthy(WebDriver driver) {
+        try {
+            return driver.getWindowHandle() != null;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void recycle(PooledSession session, String reason) {
+        LOG.info("RECYCLING WEBDRIVER {} AFTER {} USES - {}", session.key, session.uses, reason);
+        recycles.incrementAndGet();
+        quitQuietly(session.driver);
+    }
+
+    private void quitQuietly(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            //eat exception. The session may already be gone.
+        }
+    }
+
+    private void logMetrics() {
+        LOG.info("WEBDRIVER POOL - launches:{} reuses:{} recycles:{} reuseRate:{} avgLaunchMs:{}",
+                launches.get(), reuses.get(), recycles.get(),
+                String.format("%.2f", getReuseRate()), String.format("%.0f", getAverageLaunchMillis()));
+    }
+
+    private static class PooledSession {
+        private final String key;
+        private final WebDriver driver;
+        private final Dimension windowSize;
+        private int uses = 1;
+
+        private PooledSession(String key, WebDriver driver, Dimension windowSize) {
+            this.key = key;
+            this.driver = driver;
+            this.windowSize = windowSize;
+        }
+    }
+}
@@ -1,61 +1,146 @@
 package com.bizrateinsights.tests;
 
 import com.bizrateinsights.ExampleRequestHandler;
+import com.bizrateinsights.JunitUtils;
+import com.bizrateinsights.artifacts.Artifact;
+import com.bizrateinsights.artifacts.ArtifactPipeline;
+import com.bizrateinsights.artifacts.ScreenshotEncoder;
+import com.bizrateinsights.impact.DependencyRecorder;
+import com.bizrateinsights.metrics.InvocationMetrics;
+import com.bizrateinsights.metrics.Phase;
+import com.bizrateinsights.model.MetaConfig;
+import com.bizrateinsights.selenium.BrowserProfile;
+import com.bizrateinsights.selenium.Browsers;
+import com.bizrateinsights.selenium.Devices;
 import com.bizrateinsights.selenium.LambdaWebdriverFactory;
+import com.bizrateinsights.selenium.LogRingBuffer;
+import com.bizrateinsights.selenium.MatrixCell;
 import lombok.extern.log4j.Log4j2;
-import org.apache.commons.io.FileUtils;
+import org.aeonbits.owner.ConfigCache;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
+import org.junit.rules.TestName;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
 import org.openqa.selenium.remote.Augmenter;
 
-import java.io.File;
-import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 @Log4j2
 public class DataConfig {
 
     WebDriver webDriver;
     LambdaWebdriverFactory lambdaWebdriverFactory;
+
+    /**
+     * Browser session behind webDriver, which may be wrapped to record the pages the test visits
+     */
+    private WebDriver sessionDriver;
+
+    private static final MetaConfig CONFIG = ConfigCache.getOrCreate(MetaConfig.class);
     private static final Logger LOG = LogManager.getLogger(ExampleRequestHandler.class);
 
-    private void addDeleteFileShutdownHook(File file) {
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> FileUtils.deleteQuietly(file)));
-    }
+    @Rule
+    public TestName testName = new TestName();
+
+    /**
+     * Captures the screenshot and browser logs of a failed test in memory and hands them to the artifact pipeline,
+     * before the browser is released, so the upload overlaps the rest of the teardown. Passing tests capture nothing,
+     * and the logs their browser buffered are dropped on release.
+     */
+    @Rule
+    public TestWatcher teardown = new TestWatcher() {
+        @Override
+        protected void failed(Throwable e, Description description) {
+            if (webDriver == null) {
+                return; //webdriver not guaranteed to be declared in all tests
+            }
+            try {
+                captureScreenshot(description.getMethodName());
+                captureBrowserLog(description.getMethodName());
+            } catch (Exception ex) {
+                //eat exception. The browser may already be gone, I.E. when the test timed out.
+                LOG.info("Could not capture artifacts: {}", ex.getMessage());
+            }
+        }
+
+        @Override
+        protected void finished(Description description) {
+            if (webDriver != null) {
+                try {
+                    DependencyRecorder.recordUrl(webDriver.getCurrentUrl()); //the page the test ended on, I.E. after clicks
+                } catch (Exception ex) {
+                    LOG.info("Could not record the current url: {}", ex.getMessage());
+                }
+                //returns the session to the pool when pooling is enabled, quits it otherwise
+                lambdaWebdriverFactory.releaseWebdriver(getSessionDriver());
+            }
+        }
+    };
 
-    private File takeScreenshot(WebDriver webDriver) {
+    private void captureScreenshot(String method) {
+        long start = System.nanoTime();
         WebDriver augmentedDriver = new Augmenter().augment(webDriver);
-        return ((TakesScreenshot) augmentedDriver).getScreenshotAs(OutputType.FILE);
+        byte[] png = ((TakesScreenshot) augmentedDriver).getScreenshotAs(OutputType.BYTES);
+        Artifact screenshot = ScreenshotEncoder.encode(png, CONFIG.getArtifactScreenshotScale(), CONFIG.getArtifactScreenshotFormat());
+        InvocationMetrics.record(Phase.SCREENSHOT, start);
+        InvocationMetrics.recordBytes(Phase.SCREENSHOT, screenshot.getBytes().length);
+        ArtifactPipeline.submit(method, screenshot);
     }
 
-    private void saveScreenshot(WebDriver webDriver, String destinationPath) {
-        try {
-            File source = takeScreenshot(webDriver);
-            FileUtils.copyFile(source, new File(destinationPath));
-            addDeleteFileShutdownHook(source); //delete from default path
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Upload the chromedriver and chromium output the session buffered during the test, followed by its console log,
+     * gzipped.
+     */
+    private void captureBrowserLog(String method) throws Exception {
+        long start = System.nanoTime();
+        LogRingBuffer logBuffer = LambdaWebdriverFactory.getLogBuffer(getSessionDriver());
+        if (logBuffer == null) {
+            logBuffer = new LogRingBuffer(CONFIG.getBrowserLogBufferKb() * 1024); //a driver the test launched itself
+        }
+        for (LogEntry entry : webDriver.manage().logs().get(LogType.BROWSER)) {
+            logBuffer.appendLine("[console] " + entry);
+        }
+        byte[] log = logBuffer.toGzip();
+        InvocationMetrics.record(Phase.BROWSER_LOGS, start);
+        if (log != null) {
+            ArtifactPipeline.submit(method, new Artifact(".log.gz", "application/gzip", log));
         }
     }
 
-    @Before
-    public void setup() {
-        lambdaWebdriverFactory = new LambdaWebdriverFactory();
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> webDriver.quit()));
+    /**
+     * @return the browser session behind webDriver, which is what the factory knows it by
+     */
+    private WebDriver getSessionDriver() {
+        return sessionDriver != null ? sessionDriver : webDriver;
     }
 
+    /**
+     * Launch the browser of the test matrix cell the test runs in. Outside a suite run, I.E. from the IDE, the first
+     * cell of the test's {@link com.bizrateinsights.TestMatrix} is used, or a desktop chromium for tests without one.
+     */
+    protected WebDriver getMatrixWebdriver() {
+        MatrixCell cell = MatrixCell.current();
+        if (cell == null) {
+            List<MatrixCell> cells = JunitUtils.getMatrix(getClass().getName(), testName.getMethodName(), Collections.emptyList());
+            cell = cells.isEmpty() ? new MatrixCell(Browsers.CHROMIUM, Devices.DESKTOP) : cells.get(0);
+        }
+        sessionDriver = lambdaWebdriverFactory.getWebdriver(cell.getBrowser(), cell.getDevice());
+        webDriver = DependencyRecorder.recordNavigation(sessionDriver);
+        return webDriver;
+    }
 
-    @After
-    public void teardown() {
-            try{
-                //screenshot handled after junit results. Otherwise stored to temp directory and deleted after lambda execution.
-                saveScreenshot(webDriver, "/tmp/screenshot.png");
-            } catch (Exception e) {
-                //eat exception. Webdriver not guaranteed to be declared in all tests.
-            }
+    @Before
+    public void setup() {
+        DependencyRecorder.startTest(testName.getMethodName());
+        lambdaWebdriverFactory = new LambdaWebdriverFactory(BrowserProfile.forTestClass(getClass()));
     }
 }
@@ -4,6 +4,8 @@ import com.bizrateinsights.ExampleRequestHandler;
 import com.bizrateinsights.selenium.Browsers;
 import com.bizrateinsights.selenium.Devices;
 import com.bizrateinsights.JunitUtils;
+import com.bizrateinsights.NonBrowserTest;
+import com.bizrateinsights.TestMatrix;
 import lombok.extern.log4j.Log4j2;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -18,16 +20,17 @@ public class ExampleRequestHandler_Test extends DataConfig {
     private static final Logger LOG = LogManager.getLogger(ExampleRequestHandler.class);
 
     @Test
+    @TestMatrix(devices = {Devices.DESKTOP, Devices.MOBILE})
     public void test() {
-        webDriver = lambdaWebdriverFactory.getWebdriver(Browsers.CHROMIUM, Devices.DESKTOP);
+        webDriver = getMatrixWebdriver();
 
         webDriver.get("https://www.google.com");
         LOG.info("Current URL: {}", webDriver.getCurrentUrl());
         Assert.assertTrue(webDriver.getCurrentUrl().contains("google"));
-        webDriver.quit();
     }
 
     @Test
+    @NonBrowserTest
     public void test2() {
         List<String> allClasses = com.bizrateinsights.JunitUtils.getJunitTestClasses("com.automationlambda");
         LOG.info(allClasses);
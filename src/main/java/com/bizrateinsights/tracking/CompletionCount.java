@@ -0,0 +1,26 @@
+package com.bizrateinsights.tracking;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Counters of a suite run kept by a {@link CompletionTracker}.
+ */
+@Value
+@AllArgsConstructor
+public class CompletionCount {
+
+    /**
+     * Distinct tests that reached their final result.
+     */
+    int completed;
+    /**
+     * Completed tests whose final result is a failure.
+     */
+    int failed;
+    /**
+     * Distinct retries held back for the suite's retry wave.
+     */
+    int held;
+
+}
@@ -0,0 +1,45 @@
+package com.bizrateinsights.tracking;
+
+/**
+ * Tracks how many tests of a suite run have reached their final result, so that the invocation which finishes the
+ * last test can detect the end of the suite without scanning unrelated results. Tests are counted once, however many
+ * results a redelivered test stored.
+ */
+public interface CompletionTracker {
+
+    /**
+     * @param resultKey = [runId]/[testId]~[method]~RetryCount:[n]~[success](~timeout)
+     * @return [runId]/[testId]~[method], the same for every result a repeated execution of the test stores
+     */
+    static String getCompletionKey(String resultKey) {
+        int methodStart = resultKey.indexOf('~');
+        int methodEnd = methodStart < 0 ? -1 : resultKey.indexOf('~', methodStart + 1);
+        return methodEnd < 0 ? resultKey : resultKey.substring(0, methodEnd);
+    }
+
+    /**
+     * Record the final result of a single test in a suite run. Recording a test that already completed changes nothing.
+     *
+     * @param runId = suite run UUID
+     * @param resultKey = result key of the finished test
+     * @param failed = true if the final result is a failure
+     * @return counters of the suite, including this test
+     */
+    CompletionCount recordCompletion(String runId, String resultKey, boolean failed);
+
+    /**
+     * Record a retry held back for the suite's retry wave. Recording a retry that is already held changes nothing.
+     *
+     * @param runId = suite run UUID
+     * @param retryTestId = test id of the retry, the same however often the retry is scheduled
+     * @return counters of the suite, including this retry
+     */
+    CompletionCount recordHeldRetry(String runId, String retryTestId);
+
+    /**
+     * @param runId = suite run UUID
+     * @return counters of the suite so far
+     */
+    CompletionCount getCompletionCount(String runId);
+
+}
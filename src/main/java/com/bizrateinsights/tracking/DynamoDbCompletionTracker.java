@@ -0,0 +1,142 @@
+package com.bizrateinsights.tracking;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.CancellationReason;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.Put;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+import com.amazonaws.services.dynamodbv2.model.Update;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts completed tests with one atomic counter item per suite in a DynamoDB table, so recording a completion costs
+ * a transaction and a read, however large the suite. The transaction also writes a marker item per completion key,
+ * on the condition that it does not exist yet, so a test that stored a second result, I.E. after being redelivered,
+ * still counts once. Failed tests and retries held for the retry wave are counted on the same item:
+ * <p>
+ * [runId] - completed, failed and held counters of the suite
+ * <br>
+ * [runId]/[testId]~[method] - a completed test
+ * <br>
+ * [runId]/held/[testId] - a held retry
+ * <p>
+ * The table's partition key is the string "id", and items expire by their "expiresAt" epoch seconds.
+ */
+public class DynamoDbCompletionTracker implements CompletionTracker {
+
+    private static final Logger LOG = LogManager.getLogger(DynamoDbCompletionTracker.class);
+    private static final String ID = "id";
+    private static final String EXPIRES_AT = "expiresAt";
+    private static final String COMPLETED = "completed";
+    private static final String FAILED = "failed";
+    private static final String HELD = "held";
+    private static final long EXPIRY_SECONDS = TimeUnit.DAYS.toSeconds(7);
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long BACKOFF_BASE_MILLIS = 20;
+
+    private final AmazonDynamoDB dynamoDb;
+    private final String tableName;
+
+    public DynamoDbCompletionTracker(AmazonDynamoDB dynamoDb, String tableName) {
+        this.dynamoDb = dynamoDb;
+        this.tableName = tableName;
+    }
+
+    @Override
+    public CompletionCount recordCompletion(String runId, String resultKey, boolean failed) {
+        return record(runId, CompletionTracker.getCompletionKey(resultKey), failed ? COMPLETED + " :one, " + FAILED + " :one" : COMPLETED + " :one");
+    }
+
+    @Override
+    public CompletionCount recordHeldRetry(String runId, String retryTestId) {
+        return record(runId, runId + "/held/" + retryTestId, HELD + " :one");
+    }
+
+    @Override
+    public CompletionCount getCompletionCount(String runId) {
+        Map<String, AttributeValue> item = dynamoDb.getItem(new GetItemRequest()
+                .withTableName(tableName)
+                .withKey(getKey(runId))
+                .withConsistentRead(true))
+                .getItem();
+        return new CompletionCount(getCounter(item, COMPLETED), getCounter(item, FAILED), getCounter(item, HELD));
+    }
+
+    /**
+     * Write the marker item and add to the suite's counters in one transaction, unless the marker already exists.
+     * Transactions of tests completing at once conflict on the counter item, so a conflicting one is tried again.
+     *
+     * @param counters = counters to add one to, I.E. "completed :one"
+     */
+    private CompletionCount record(String runId, String markerId, String counters) {
+        Map<String, AttributeValue> marker = getKey(markerId);
+        marker.put(EXPIRES_AT, getExpiresAt());
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":one", new AttributeValue().withN("1"));
+        values.put(":expiresAt", getExpiresAt());
+        TransactWriteItemsRequest request = new TransactWriteItemsRequest().withTransactItems(
+                new TransactWriteItem().withPut(new Put()
+                        .withTableName(tableName)
+                        .withItem(marker)
+                        .withConditionExpression("attribute_not_exists(" + ID + ")")),
+                new TransactWriteItem().withUpdate(new Update()
+                        .withTableName(tableName)
+                        .withKey(getKey(runId))
+                        .withUpdateExpression("ADD " + counters + " SET " + EXPIRES_AT + " = :expiresAt")
+                        .withExpressionAttributeValues(values)));
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                dynamoDb.transactWriteItems(request);
+                break;
+            } catch (TransactionCanceledException e) {
+                List<CancellationReason> reasons = e.getCancellationReasons() == null
+                        ? Collections.emptyList() : e.getCancellationReasons();
+                if (!reasons.isEmpty() && "ConditionalCheckFailed".equals(reasons.get(0).getCode())) {
+                    LOG.info("{} IS ALREADY RECORDED", markerId);
+                    break;
+                }
+                if (attempt >= MAX_ATTEMPTS || reasons.stream().noneMatch(x -> "TransactionConflict".equals(x.getCode()))) {
+                    throw e;
+                }
+                backOff(attempt);
+            }
+        }
+        return getCompletionCount(runId);
+    }
+
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(BACKOFF_BASE_MILLIS << Math.min(attempt, 6)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while recording a completion", e);
+        }
+    }
+
+    private static Map<String, AttributeValue> getKey(String id) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put(ID, new AttributeValue().withS(id));
+        return key;
+    }
+
+    private static AttributeValue getExpiresAt() {
+        return new AttributeValue().withN(String.valueOf(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + EXPIRY_SECONDS));
+    }
+
+    private static int getCounter(Map<String, AttributeValue> item, String counter) {
+        AttributeValue value = item == null ? null : item.get(counter);
+        return value == null || value.getN() == null ? 0 : Integer.parseInt(value.getN());
+    }
+}
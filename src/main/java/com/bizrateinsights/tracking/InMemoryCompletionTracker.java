@@ -0,0 +1,59 @@
+package com.bizrateinsights.tracking;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-suite counters held in memory. Only valid when every test of a suite runs inside the same JVM, such as local
+ * development runs and unit tests.
+ */
+public class InMemoryCompletionTracker implements CompletionTracker {
+
+    private final Map<String, SuiteCounters> suites = new ConcurrentHashMap<>();
+
+    @Override
+    public CompletionCount recordCompletion(String runId, String resultKey, boolean failed) {
+        return getSuite(runId).record(CompletionTracker.getCompletionKey(resultKey), 1, failed ? 1 : 0, 0);
+    }
+
+    @Override
+    public CompletionCount recordHeldRetry(String runId, String retryTestId) {
+        return getSuite(runId).record("held/" + retryTestId, 0, 0, 1);
+    }
+
+    @Override
+    public CompletionCount getCompletionCount(String runId) {
+        SuiteCounters suite = suites.get(runId);
+        return suite == null ? new CompletionCount(0, 0, 0) : suite.get();
+    }
+
+    private SuiteCounters getSuite(String runId) {
+        return suites.computeIfAbsent(runId, x -> new SuiteCounters());
+    }
+
+    /**
+     * Recorded and counted under one lock, so two tests completing at once never both see the last count.
+     */
+    private static class SuiteCounters {
+
+        private final Set<String> recorded = new HashSet<>();
+        private int completed;
+        private int failed;
+        private int held;
+
+        private synchronized CompletionCount record(String key, int completedDelta, int failedDelta, int heldDelta) {
+            if (recorded.add(key)) {
+                completed += completedDelta;
+                failed += failedDelta;
+                held += heldDelta;
+            }
+            return get();
+        }
+
+        private synchronized CompletionCount get() {
+            return new CompletionCount(completed, failed, held);
+        }
+    }
+}
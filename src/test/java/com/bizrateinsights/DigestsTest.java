@@ -0,0 +1,23 @@
+package com.bizrateinsights;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DigestsTest {
+
+    @Test
+    public void sha256Hex() {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", Digests.sha256Hex("abc"));
+    }
+
+    @Test
+    public void sha1Hex() {
+        assertEquals("a9993e364706816aba3e25717850c26c9cd0d89d", Digests.sha1Hex("abc"));
+    }
+
+    @Test
+    public void toHexPadsEveryByte() {
+        assertEquals("000fa0ff", Digests.toHex(new byte[]{0, 15, (byte) 0xa0, (byte) 0xff}));
+    }
+}
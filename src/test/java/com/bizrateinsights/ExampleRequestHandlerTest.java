@@ -0,0 +1,88 @@
+package com.bizrateinsights;
+
+import com.bizrateinsights.model.TestTrigger;
+import com.bizrateinsights.results.LocalResultStore;
+import com.bizrateinsights.retry.RetryPolicy;
+import com.bizrateinsights.tracking.InMemoryCompletionTracker;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExampleRequestHandlerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<TestTrigger> dispatched = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> notifications = Collections.synchronizedList(new ArrayList<>());
+    private ExampleRequestHandler handler;
+    private String runId;
+
+    @Before
+    public void setUp() {
+        handler = new ExampleRequestHandler(x -> {
+            dispatched.addAll(x);
+            return x.size();
+        }, new InMemoryCompletionTracker(), new LocalResultStore(folder.getRoot().getAbsolutePath()), notifications::add,
+                new RetryPolicy(RetryPolicy.Strategy.WAVE, 1, 0, 0));
+        runId = String.valueOf(UUID.randomUUID());
+    }
+
+    @Test
+    public void cancelledSuiteReleasesHeldWaveAndFinishes() {
+        handler.runTestTrigger(trigger("fails"), Long.MAX_VALUE);
+        assertTrue("the failed test is held for the wave", dispatched.isEmpty());
+
+        Map<String, Object> cancel = new HashMap<>();
+        cancel.put("run", "cancel");
+        cancel.put("runId", runId);
+        handler.handleRequest(cancel, null);
+        handler.runTestTrigger(trigger("passes"), Long.MAX_VALUE);
+
+        assertEquals(1, dispatched.size());
+        TestTrigger retry = dispatched.get(0);
+        assertEquals("fails", retry.getMethod());
+        assertEquals(Integer.valueOf(1), retry.getRetryCount());
+
+        handler.runTestTrigger(retry, Long.MAX_VALUE);
+        handler.flushNotifications();
+
+        assertTrue(notifications.stream().anyMatch(x -> x.contains("has finished running all tests")
+                && x.contains("Cancelled - cancelled on request")));
+    }
+
+    private TestTrigger trigger(String method) {
+        return TestTrigger.builder()
+                .testClass(WaveFixture.class.getName())
+                .method(method)
+                .runId(runId)
+                .testId(String.valueOf(UUID.randomUUID()))
+                .testCount(2)
+                .retryCount(0)
+                .build();
+    }
+
+    public static class WaveFixture {
+
+        @Test
+        public void passes() {
+        }
+
+        @Test
+        public void fails() {
+            Assert.fail("fails on purpose");
+        }
+    }
+}
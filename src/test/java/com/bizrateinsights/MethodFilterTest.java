@@ -0,0 +1,70 @@
+package com.bizrateinsights;
+
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MethodFilterTest {
+
+    @Test
+    public void includesOnlyListedMethods() {
+        MethodFilter filter = new MethodFilter(Arrays.asList("first", "third"));
+
+        assertTrue(filter.shouldRun(Description.createTestDescription(Fixture.class, "first")));
+        assertTrue(filter.shouldRun(Description.createTestDescription(Fixture.class, "third")));
+        assertFalse(filter.shouldRun(Description.createTestDescription(Fixture.class, "second")));
+    }
+
+    @Test
+    public void runsSeveralMethodsThroughOneRunner() throws Exception {
+        Fixture.RAN.clear();
+        BlockJUnit4ClassRunner runner = new BlockJUnit4ClassRunner(Fixture.class);
+        runner.filter(new MethodFilter(Arrays.asList("first", "third")));
+
+        Result result = new JUnitCore().run(runner);
+
+        assertEquals(2, result.getRunCount());
+        Collections.sort(Fixture.RAN);
+        assertEquals(Arrays.asList("first", "third"), Fixture.RAN);
+    }
+
+    @Test
+    public void singleMethod() {
+        MethodFilter filter = new MethodFilter("second");
+
+        assertTrue(filter.shouldRun(Description.createTestDescription(Fixture.class, "second")));
+        assertFalse(filter.shouldRun(Description.createTestDescription(Fixture.class, "first")));
+        assertEquals("Includes tests with method name: second", filter.describe());
+    }
+
+    public static class Fixture {
+
+        private static final List<String> RAN = Collections.synchronizedList(new ArrayList<>());
+
+        @Test
+        public void first() {
+            RAN.add("first");
+        }
+
+        @Test
+        public void second() {
+            RAN.add("second");
+        }
+
+        @Test
+        public void third() {
+            RAN.add("third");
+        }
+    }
+}
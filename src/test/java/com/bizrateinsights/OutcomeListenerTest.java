@@ -0,0 +1,113 @@
+package com.bizrateinsights;
+
+import com.bizrateinsights.model.TestOutcome;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.Description;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OutcomeListenerTest {
+
+    @Test
+    public void failuresAreAttributedToTheirMethod() {
+        List<TestOutcome> outcomes = JunitUtils.runJunitTests(MixedFixture.class.getName(), Arrays.asList("passes", "fails"));
+
+        assertEquals(2, outcomes.size());
+        TestOutcome passes = getOutcome(outcomes, "passes");
+        assertTrue(passes.isSuccessful());
+        assertTrue(passes.getFailures().isEmpty());
+        TestOutcome fails = getOutcome(outcomes, "fails");
+        assertFalse(fails.isSuccessful());
+        assertEquals(1, fails.getFailures().size());
+        assertEquals("fails on purpose", fails.getFailures().get(0).getMessage());
+    }
+
+    @Test
+    public void beforeClassFailureFailsEveryMethod() {
+        List<TestOutcome> outcomes = JunitUtils.runJunitTests(BeforeClassFixture.class.getName(), Arrays.asList("first", "second"));
+
+        assertEquals(2, outcomes.size());
+        for (TestOutcome outcome : outcomes) {
+            assertFalse(outcome.isSuccessful());
+            assertEquals("setup fails", outcome.getFailures().get(0).getMessage());
+        }
+    }
+
+    @Test
+    public void afterClassFailureFailsPassedMethods() {
+        List<TestOutcome> outcomes = JunitUtils.runJunitTests(AfterClassFixture.class.getName(), Arrays.asList("first"));
+
+        assertEquals(1, outcomes.size());
+        assertFalse(outcomes.get(0).isSuccessful());
+        assertEquals("teardown fails", outcomes.get(0).getFailures().get(0).getMessage());
+    }
+
+    @Test
+    public void unfinishedMethodsTimeOut() {
+        OutcomeListener listener = new OutcomeListener();
+        Description finished = Description.createTestDescription(MixedFixture.class, "passes");
+        listener.testStarted(finished);
+        listener.testFinished(finished);
+        listener.testStarted(Description.createTestDescription(MixedFixture.class, "fails"));
+
+        List<TestOutcome> outcomes = listener.getTimedOutOutcomes(Arrays.asList("passes", "fails", "notStarted"));
+
+        assertEquals(3, outcomes.size());
+        assertTrue(getOutcome(outcomes, "passes").isSuccessful());
+        assertTrue(getOutcome(outcomes, "fails").isTimedOut());
+        assertTrue(getOutcome(outcomes, "notStarted").isTimedOut());
+    }
+
+    private static TestOutcome getOutcome(List<TestOutcome> outcomes, String method) {
+        return outcomes.stream().filter(x -> x.getMethod().equals(method)).findFirst()
+                .orElseThrow(() -> new AssertionError("No outcome for " + method));
+    }
+
+    public static class MixedFixture {
+
+        @Test
+        public void passes() {
+        }
+
+        @Test
+        public void fails() {
+            Assert.fail("fails on purpose");
+        }
+    }
+
+    public static class BeforeClassFixture {
+
+        @BeforeClass
+        public static void setUpClass() {
+            Assert.fail("setup fails");
+        }
+
+        @Test
+        public void first() {
+        }
+
+        @Test
+        public void second() {
+        }
+    }
+
+    public static class AfterClassFixture {
+
+        @AfterClass
+        public static void tearDownClass() {
+            Assert.fail("teardown fails");
+        }
+
+        @Test
+        public void first() {
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.bizrateinsights.dispatch;
+
+import com.bizrateinsights.model.TestTrigger;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestSchedulerTest {
+
+    private static final long STARTED_AT = 1_000_000L;
+
+    @Test
+    public void longestTriggersAreDispatchedFirst() {
+        TestScheduler.Schedule schedule = new TestScheduler(2, false).schedule(Arrays.asList(
+                trigger("A_Test", "a", 10L),
+                trigger("B_Test", "b", 50L),
+                trigger("C_Test", "c", null),
+                trigger("D_Test", "d", 30L)), STARTED_AT);
+
+        assertEquals(Arrays.asList("b", "d", "a", "c"), getMethods(schedule.getTriggers()));
+    }
+
+    @Test
+    public void tiesAreOrderedByClassThenMethod() {
+        TestScheduler.Schedule schedule = new TestScheduler(1, false).schedule(Arrays.asList(
+                trigger("B_Test", "a", 10L),
+                trigger("A_Test", "b", 10L),
+                trigger("A_Test", "a", 10L)), STARTED_AT);
+
+        List<String> order = schedule.getTriggers().stream()
+                .map(x -> x.getTestClass() + "#" + x.getMethod())
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList("A_Test#a", "A_Test#b", "B_Test#a"), order);
+    }
+
+    @Test
+    public void makespanOfLongestProcessingTimeFirst() {
+        //lanes take 50, 40 then 30 + 20, so the longest lane runs 50
+        TestScheduler.Schedule schedule = new TestScheduler(3, false).schedule(Arrays.asList(
+                trigger("A_Test", "a", 20L),
+                trigger("B_Test", "b", 50L),
+                trigger("C_Test", "c", 30L),
+                trigger("D_Test", "d", 40L)), STARTED_AT);
+
+        assertEquals(50, schedule.getPredictedMakespanMillis());
+        for (TestTrigger trigger : schedule.getTriggers()) {
+            assertEquals(Long.valueOf(STARTED_AT), trigger.getSuiteStartedAt());
+            assertEquals(Long.valueOf(50), trigger.getPredictedMakespanMillis());
+        }
+    }
+
+    @Test
+    public void fifoLanesGoToLeastLoadedLane() {
+        TestScheduler.Schedule schedule = new TestScheduler(2, true).schedule(Arrays.asList(
+                trigger("A_Test", "a", 60L),
+                trigger("B_Test", "b", 40L),
+                trigger("C_Test", "c", 30L),
+                trigger("D_Test", "d", 20L),
+                trigger("E_Test", "e", 10L)), STARTED_AT);
+
+        //lane 0 runs 60 + 20, lane 1 runs 40 + 30 + 10
+        List<Integer> lanes = schedule.getTriggers().stream().map(TestTrigger::getLane).collect(Collectors.toList());
+        assertEquals(Arrays.asList(0, 1, 1, 0, 1), lanes);
+        assertEquals(80, schedule.getPredictedMakespanMillis());
+    }
+
+    @Test
+    public void equallyLoadedLanesAreTakenInOrder() {
+        TestScheduler.Schedule schedule = new TestScheduler(2, true).schedule(Arrays.asList(
+                trigger("A_Test", "a", 40L),
+                trigger("B_Test", "b", 40L),
+                trigger("C_Test", "c", 20L),
+                trigger("D_Test", "d", 20L)), STARTED_AT);
+
+        List<Integer> lanes = schedule.getTriggers().stream().map(TestTrigger::getLane).collect(Collectors.toList());
+        assertEquals(Arrays.asList(0, 1, 0, 1), lanes);
+        assertEquals(60, schedule.getPredictedMakespanMillis());
+    }
+
+    @Test
+    public void lanesAreOnlyAssignedForFifoLanes() {
+        TestScheduler.Schedule schedule = new TestScheduler(2, false).schedule(Arrays.asList(
+                trigger("A_Test", "a", 10L),
+                trigger("B_Test", "b", 20L)), STARTED_AT);
+
+        for (TestTrigger trigger : schedule.getTriggers()) {
+            assertNull(trigger.getLane());
+        }
+    }
+
+    private static List<String> getMethods(List<TestTrigger> triggers) {
+        return triggers.stream().map(TestTrigger::getMethod).collect(Collectors.toList());
+    }
+
+    private static TestTrigger trigger(String testClass, String method, Long expectedMillis) {
+        return TestTrigger.builder()
+                .runId("run")
+                .testId(testClass + "#" + method)
+                .testClass(testClass)
+                .method(method)
+                .testCount(1)
+                .retryCount(0)
+                .expectedMillis(expectedMillis)
+                .build();
+    }
+}
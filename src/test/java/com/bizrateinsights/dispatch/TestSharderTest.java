@@ -0,0 +1,84 @@
+package com.bizrateinsights.dispatch;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestSharderTest {
+
+    private static final String CLASS = "com.bizrateinsights.tests.Example_Test";
+
+    @Test
+    public void shortTestsSharePackedShards() {
+        TestSharder sharder = new TestSharder(estimator(10, "a", 60, "b", 50, "c", 40, "d", 30), 100, 10);
+
+        List<TestSharder.TestShard> shards = sharder.shard(tests(CLASS, "a", "b", "c", "d"));
+
+        assertEquals(2, shards.size());
+        assertEquals(Arrays.asList("a", "c"), shards.get(0).getMethods());
+        assertEquals(100, shards.get(0).getExpectedMillis());
+        assertEquals(Arrays.asList("b", "d"), shards.get(1).getMethods());
+        assertEquals(80, shards.get(1).getExpectedMillis());
+    }
+
+    @Test
+    public void shardsStopAtMaxMethods() {
+        TestSharder sharder = new TestSharder((x, y) -> 10, 1000, 2);
+
+        List<TestSharder.TestShard> shards = sharder.shard(tests(CLASS, "a", "b", "c", "d", "e"));
+
+        assertEquals(3, shards.size());
+        assertEquals(2, shards.get(0).getMethods().size());
+        assertEquals(2, shards.get(1).getMethods().size());
+        assertEquals(1, shards.get(2).getMethods().size());
+    }
+
+    @Test
+    public void oversizedTestGetsItsOwnShard() {
+        TestSharder sharder = new TestSharder(estimator(10, "long", 500), 100, 10);
+
+        List<TestSharder.TestShard> shards = sharder.shard(tests(CLASS, "a", "long", "b"));
+
+        assertEquals(2, shards.size());
+        assertEquals(Collections.singletonList("long"), shards.get(0).getMethods());
+        assertEquals(500, shards.get(0).getExpectedMillis());
+        assertEquals(Arrays.asList("a", "b"), shards.get(1).getMethods());
+    }
+
+    @Test
+    public void shardsHoldMethodsOfOneClass() {
+        TestSharder sharder = new TestSharder((x, y) -> 10, 1000, 10);
+        Map<String, List<String>> tests = tests(CLASS, "a");
+        tests.put("com.bizrateinsights.tests.Other_Test", Collections.singletonList("a"));
+
+        List<TestSharder.TestShard> shards = sharder.shard(tests);
+
+        assertEquals(2, shards.size());
+        assertEquals(CLASS, shards.get(0).getClassName());
+        assertEquals("com.bizrateinsights.tests.Other_Test", shards.get(1).getClassName());
+    }
+
+    private static Map<String, List<String>> tests(String className, String... methods) {
+        Map<String, List<String>> tests = new LinkedHashMap<>();
+        tests.put(className, Arrays.asList(methods));
+        return tests;
+    }
+
+    /**
+     * @param millis = method, run time, method, run time... for methods that do not take the default
+     */
+    private static DurationEstimator estimator(long defaultMillis, Object... millis) {
+        Map<String, Long> estimates = new HashMap<>();
+        for (int i = 0; i < millis.length; i += 2) {
+            estimates.put((String) millis[i], ((Number) millis[i + 1]).longValue());
+        }
+        return (className, methodName) -> estimates.getOrDefault(methodName, defaultMillis);
+    }
+}
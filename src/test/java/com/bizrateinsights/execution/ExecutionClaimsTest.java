@@ -0,0 +1,126 @@
+package com.bizrateinsights.execution;
+
+import com.bizrateinsights.model.TestTrigger;
+import com.bizrateinsights.results.LocalResultStore;
+import com.bizrateinsights.results.ResultStore;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExecutionClaimsTest {
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ResultStore resultStore;
+    private TestTrigger trigger;
+
+    @Before
+    public void setUp() {
+        resultStore = new LocalResultStore(folder.getRoot().getAbsolutePath());
+        trigger = TestTrigger.builder()
+                .runId(String.valueOf(UUID.randomUUID()))
+                .testId(String.valueOf(UUID.randomUUID()))
+                .testClass("com.bizrateinsights.tests.Example_Test")
+                .method("testExample")
+                .testCount(1)
+                .retryCount(0)
+                .build();
+    }
+
+    @Test
+    public void firstDeliveryAcquires() {
+        assertEquals(ExecutionClaims.Status.ACQUIRED, new ExecutionClaims(resultStore).claim(trigger, leaseFromNow()));
+    }
+
+    @Test
+    public void duplicateOfLiveLeaseIsRunning() {
+        ExecutionClaims claims = new ExecutionClaims(resultStore);
+        claims.claim(trigger, leaseFromNow());
+
+        assertEquals(ExecutionClaims.Status.RUNNING, claims.claim(trigger, leaseFromNow()));
+    }
+
+    @Test
+    public void duplicateOfDoneAttemptIsCompleted() {
+        ExecutionClaims claims = new ExecutionClaims(resultStore);
+        claims.claim(trigger, leaseFromNow());
+        claims.complete(trigger);
+
+        assertEquals(ExecutionClaims.Status.COMPLETED, claims.claim(trigger, leaseFromNow()));
+    }
+
+    @Test
+    public void expiredLeaseIsTakenOverOnce() {
+        ExecutionClaims claims = new ExecutionClaims(resultStore);
+        claims.claim(trigger, System.currentTimeMillis() - 1); //its invocation crashed
+
+        assertEquals(ExecutionClaims.Status.ACQUIRED, claims.claim(trigger, leaseFromNow()));
+        assertEquals(ExecutionClaims.Status.RUNNING, claims.claim(trigger, leaseFromNow()));
+    }
+
+    @Test
+    public void leaseTakenAfterListingWinsOverStaleListing() {
+        //B lists no lease, A claims and runs before B writes its own, then B must not run the attempt as well
+        ExecutionClaims claimsA = new ExecutionClaims(resultStore);
+        List<ExecutionClaims.Status> statusA = new ArrayList<>();
+        ResultStore interleaved = new LocalResultStore(folder.getRoot().getAbsolutePath()) {
+            @Override
+            public List<String> getResultKeys(String prefix) {
+                List<String> keys = super.getResultKeys(prefix);
+                if (statusA.isEmpty()) {
+                    statusA.add(claimsA.claim(trigger, leaseFromNow()));
+                }
+                return keys;
+            }
+        };
+
+        ExecutionClaims.Status statusB = new ExecutionClaims(interleaved).claim(trigger, leaseFromNow());
+
+        assertEquals(ExecutionClaims.Status.ACQUIRED, statusA.get(0));
+        assertEquals(ExecutionClaims.Status.RUNNING, statusB);
+    }
+
+    @Test
+    public void racingDeliveriesAcquireOnce() throws Exception {
+        int deliveries = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(deliveries);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ExecutionClaims.Status>> statuses = new ArrayList<>();
+        try {
+            for (int i = 0; i < deliveries; i++) {
+                statuses.add(executor.submit(() -> {
+                    start.await();
+                    return new ExecutionClaims(resultStore).claim(trigger, leaseFromNow());
+                }));
+            }
+            start.countDown();
+
+            int acquired = 0;
+            for (Future<ExecutionClaims.Status> status : statuses) {
+                acquired += status.get(10, TimeUnit.SECONDS) == ExecutionClaims.Status.ACQUIRED ? 1 : 0;
+            }
+            assertEquals(1, acquired);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long leaseFromNow() {
+        return System.currentTimeMillis() + HOUR_MILLIS;
+    }
+}
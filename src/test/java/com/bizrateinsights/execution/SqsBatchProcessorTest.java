@@ -0,0 +1,70 @@
+package com.bizrateinsights.execution;
+
+import com.bizrateinsights.model.TestTrigger;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class SqsBatchProcessorTest {
+
+    @Test
+    public void recordsThatCannotStartBeforeDeadlineAreReturnedUnrun() {
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        long deadline = System.currentTimeMillis() + 200;
+
+        //one browser slot: the first record holds it past the deadline, so the others never start
+        Map<String, Object> response = new SqsBatchProcessor(1, 1).process(
+                Arrays.asList(record("a"), record("b"), record("c")),
+                x -> TestTrigger.builder().testId(x).retryCount(0).build(),
+                x -> {
+                    ran.add(x.getTestId());
+                    sleepUntil(deadline + 50);
+                    return true;
+                },
+                x -> true,
+                (x, y) -> false,
+                deadline);
+
+        assertEquals(Collections.singletonList("a"), ran);
+        assertEquals(Arrays.asList(failure("b"), failure("c")), response.get("batchItemFailures"));
+    }
+
+    @Test
+    public void recordsStartedBeforeDeadlineAreNotReturned() {
+        Map<String, Object> response = new SqsBatchProcessor(2, 2).process(
+                Arrays.asList(record("a"), record("b")),
+                x -> TestTrigger.builder().testId(x).retryCount(0).build(),
+                x -> false,
+                x -> false,
+                (x, y) -> false,
+                Long.MAX_VALUE);
+
+        assertEquals(Collections.emptyList(), response.get("batchItemFailures"));
+    }
+
+    private static Map<String, Object> record(String messageId) {
+        Map<String, Object> record = new HashMap<>();
+        record.put("messageId", messageId);
+        record.put("body", messageId);
+        return record;
+    }
+
+    private static Map<String, String> failure(String messageId) {
+        return Collections.singletonMap("itemIdentifier", messageId);
+    }
+
+    private static void sleepUntil(long millis) {
+        try {
+            Thread.sleep(Math.max(0, millis - System.currentTimeMillis()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
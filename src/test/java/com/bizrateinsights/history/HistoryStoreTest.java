@@ -0,0 +1,83 @@
+package com.bizrateinsights.history;
+
+import com.bizrateinsights.results.LocalResultStore;
+import com.bizrateinsights.results.ResultStore;
+import com.google.gson.reflect.TypeToken;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class HistoryStoreTest {
+
+    private static final String KEY = "history/counts.json";
+    private static final Type TYPE = new TypeToken<Map<String, Integer>>() {}.getType();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ResultStore resultStore;
+    private HistoryStore<Map<String, Integer>> historyStore;
+
+    @Before
+    public void setUp() {
+        resultStore = new LocalResultStore(folder.getRoot().getAbsolutePath());
+        historyStore = new HistoryStore<>(resultStore, KEY, TYPE, HashMap::new);
+    }
+
+    @Test
+    public void suiteIsFoldedInOnce() {
+        historyStore.apply("run-1", x -> x.merge("test", 1, Integer::sum));
+
+        assertNull(historyStore.apply("run-1", x -> x.merge("test", 1, Integer::sum)));
+        assertEquals(Integer.valueOf(1), historyStore.load().get("test"));
+    }
+
+    @Test
+    public void historyStoredWithoutRunsIsRead() {
+        resultStore.putResult(KEY, "{\"test\":3}");
+
+        historyStore.apply("run-1", x -> x.merge("test", 1, Integer::sum));
+
+        assertEquals(Integer.valueOf(4), historyStore.load().get("test"));
+    }
+
+    @Test
+    public void concurrentSuitesAreAllFoldedIn() throws Exception {
+        int suites = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(suites);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> updates = new ArrayList<>();
+        try {
+            for (int i = 0; i < suites; i++) {
+                String runId = "run-" + i;
+                updates.add(executor.submit(() -> {
+                    start.await();
+                    return historyStore.apply(runId, x -> x.merge("test", 1, Integer::sum));
+                }));
+            }
+            start.countDown();
+            for (Future<?> update : updates) {
+                update.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(Integer.valueOf(suites), historyStore.load().get("test"));
+    }
+}
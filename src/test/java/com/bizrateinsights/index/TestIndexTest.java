@@ -0,0 +1,37 @@
+package com.bizrateinsights.index;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestIndexTest {
+
+    private final TestIndex index = new TestIndex(Arrays.asList(
+            new TestIndexEntry("com.example.A_Test", "first", false, Collections.emptyList()),
+            new TestIndexEntry("com.example.A_Test", "second", false, Collections.singletonList(TestIndexEntry.NON_BROWSER_TAG)),
+            new TestIndexEntry("com.example.B_Test", "first", true, Collections.emptyList())));
+
+    @Test
+    public void entryIsFoundByClassAndMethod() {
+        assertTrue(index.getEntry("com.example.A_Test", "second").isNonBrowser());
+        assertTrue(index.getEntry("com.example.B_Test", "first").isIgnored());
+    }
+
+    @Test
+    public void unindexedMethodHasNoEntry() {
+        assertNull(index.getEntry("com.example.A_Test", "third"));
+        assertNull(index.getEntry("com.example.C_Test", "first"));
+    }
+
+    @Test
+    public void entriesOfClassKeepIndexOrder() {
+        assertEquals(2, index.getEntries("com.example.A_Test").size());
+        assertEquals("first", index.getEntries("com.example.A_Test").get(0).getMethodName());
+        assertEquals(Arrays.asList("com.example.A_Test", "com.example.B_Test"), index.getClasses("com.example"));
+    }
+}
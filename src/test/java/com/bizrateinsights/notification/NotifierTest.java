@@ -0,0 +1,31 @@
+package com.bizrateinsights.notification;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NotifierTest {
+
+    private static final InheritableThreadLocal<String> BINDING = new InheritableThreadLocal<>();
+
+    @Test
+    public void senderDoesNotInheritBindingsOfFirstSend() {
+        List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        Notifier notifier = new Notifier(x -> seen.add(String.valueOf(BINDING.get())), 10);
+
+        BINDING.set("first test");
+        try {
+            notifier.send("message");
+        } finally {
+            BINDING.remove();
+        }
+
+        assertTrue(notifier.flush(5000));
+        assertEquals(Collections.singletonList("null"), seen);
+    }
+}
@@ -0,0 +1,79 @@
+package com.bizrateinsights.results;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResultReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ResultStore resultStore;
+    private List<String> keys;
+
+    @Before
+    public void setUp() {
+        resultStore = new LocalResultStore(folder.getRoot().getAbsolutePath());
+        keys = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            keys.add("metrics/run/" + i);
+            resultStore.putResult("metrics/run/" + i, String.valueOf(i));
+        }
+    }
+
+    @Test
+    public void bodiesAreHandedOverInKeyOrder() {
+        List<String> bodies = new ArrayList<>();
+
+        int read = new ResultReader(resultStore, 4).read(keys, Long.MAX_VALUE, bodies::add);
+
+        assertEquals(20, read);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            expected.add(String.valueOf(i));
+        }
+        assertEquals(expected, bodies);
+    }
+
+    @Test
+    public void noReadsStartAfterDeadline() {
+        List<String> bodies = new ArrayList<>();
+
+        int read = new ResultReader(resultStore, 4).read(keys, System.currentTimeMillis() - 1, bodies::add);
+
+        assertEquals(0, read);
+        assertEquals(Collections.emptyList(), bodies);
+    }
+
+    @Test
+    public void readsStartedBeforeDeadlineAreHandedOver() {
+        List<String> bodies = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 100;
+
+        //the first two reads start in time, the first body is handled past the deadline, so no third read starts
+        int read = new ResultReader(resultStore, 2).read(keys, deadline, x -> {
+            bodies.add(x);
+            sleepUntil(deadline + 100);
+        });
+
+        assertEquals(2, read);
+        assertEquals(Arrays.asList("0", "1"), bodies);
+    }
+
+    private static void sleepUntil(long millis) {
+        try {
+            Thread.sleep(Math.max(0, millis - System.currentTimeMillis()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
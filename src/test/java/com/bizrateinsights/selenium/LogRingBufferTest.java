@@ -0,0 +1,83 @@
+package com.bizrateinsights.selenium;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LogRingBufferTest {
+
+    @Test
+    public void emptyBufferHasNoLogs() throws IOException {
+        assertNull(new LogRingBuffer(8).toGzip());
+    }
+
+    @Test
+    public void logsWithinCapacityAreKeptWhole() throws IOException {
+        LogRingBuffer buffer = new LogRingBuffer(8);
+        buffer.write(bytes("abc"));
+        buffer.write('d');
+
+        assertEquals("abcd", gunzip(buffer.toGzip()));
+        assertEquals(0, buffer.getDropped());
+    }
+
+    @Test
+    public void exactlyFullBufferDropsNothing() throws IOException {
+        LogRingBuffer buffer = new LogRingBuffer(8);
+        buffer.write(bytes("abcd"));
+        buffer.write(bytes("efgh"));
+
+        assertEquals("abcdefgh", gunzip(buffer.toGzip()));
+        assertEquals(0, buffer.getDropped());
+    }
+
+    @Test
+    public void wrappedWritesKeepTheNewestBytesOldestFirst() throws IOException {
+        LogRingBuffer buffer = new LogRingBuffer(8);
+        buffer.write(bytes("abcdef"));
+        buffer.write(bytes("ghijk"));
+        buffer.write('l');
+
+        assertEquals(12, buffer.getWritten());
+        assertEquals(4, buffer.getDropped());
+        assertEquals("[4 earlier bytes dropped]\nefghijkl", gunzip(buffer.toGzip()));
+    }
+
+    @Test
+    public void writeLongerThanCapacityKeepsItsTail() throws IOException {
+        LogRingBuffer buffer = new LogRingBuffer(4);
+        buffer.write('a');
+        buffer.write(bytes("bcdefghij"), 1, 7);
+
+        assertEquals("[4 earlier bytes dropped]\nfghi", gunzip(buffer.toGzip()));
+    }
+
+    @Test
+    public void clearedBufferOnlyHoldsNewLogs() throws IOException {
+        LogRingBuffer buffer = new LogRingBuffer(4);
+        buffer.appendLine("first");
+
+        assertEquals(6, buffer.clear());
+        buffer.appendLine("ok");
+
+        assertEquals("ok\n", gunzip(buffer.toGzip()));
+        assertEquals(3, buffer.getWritten());
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String gunzip(byte[] gzipped) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return IOUtils.toString(gzip, StandardCharsets.UTF_8);
+        }
+    }
+}